@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+// both paths write to /dev/null so the numbers are the cost of encoding and writing, not of the terminal
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandSinkBenchmark {
+
+    @Param({"ascii", "unicode"})
+    public String text;
+
+    private String line;
+
+    private PrintStream stdout;
+    private PrintStream out;
+    private FileChannel channel;
+
+    private CommandSink systemOut;
+    private CommandSink channelSink;
+    private CommandSink bufferedSystemOut;
+    private CommandSink bufferedChannel;
+
+    @Setup
+    public void setup() throws IOException{
+        line = "ascii".equals(text)
+            ? "::debug::Resolved 42 dependencies for dev.katsute:jcore in 118 ms"
+            : "::debug::\u00c9tape termin\u00e9e \u2713 \u2014 \u4f9d\u5b58\u95a2\u4fc2\u3092\u89e3\u6c7a\u3057\u307e\u3057\u305f \ud83d\ude80";
+
+        // same shape as the JVM's own System.out
+        stdout = System.out;
+        out = new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 128), true, "UTF-8");
+        System.setOut(out);
+        channel = FileChannel.open(Paths.get("/dev/null"), StandardOpenOption.WRITE);
+
+        systemOut         = StandardOutputSink.INSTANCE;
+        channelSink       = new ChannelCommandSink(channel, () -> System.out, 8 * 1024);
+        bufferedSystemOut = new BufferedCommandSink(StandardOutputSink.INSTANCE, 8 * 1024, 0);
+        bufferedChannel   = new BufferedCommandSink(new ChannelCommandSink(channel, () -> System.out, 8 * 1024), 8 * 1024, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException{
+        bufferedSystemOut.flush();
+        bufferedChannel.flush();
+        System.setOut(stdout);
+        out.close();
+        channel.close();
+    }
+
+    @Benchmark
+    public void systemOut(){
+        systemOut.write(line);
+    }
+
+    @Benchmark
+    public void channel(){
+        channelSink.write(line);
+    }
+
+    @Benchmark
+    public void bufferedSystemOut(){
+        bufferedSystemOut.write(line);
+    }
+
+    @Benchmark
+    public void bufferedChannel(){
+        bufferedChannel.write(line);
+    }
+
+}
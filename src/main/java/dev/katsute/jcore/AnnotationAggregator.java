@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets the first occurrence of each annotation through and counts repeats. Annotations are keyed by level, file, line and message; each level may only show a limited number of distinct annotations. Once a level is over its budget only a limited number of further distinct annotations are kept for the summary, the rest are counted without being stored.
+ */
+final class AnnotationAggregator {
+
+    // distinct over budget annotations kept for the summary, per level
+    private static final int maxTracked = 100;
+
+    private final int budget;
+
+    private final Map<Key,Entry> annotations = new ConcurrentHashMap<>();
+    private final Map<String,Level> levels = new ConcurrentHashMap<>();
+
+    AnnotationAggregator(final int budget){
+        this.budget = budget;
+    }
+
+    /**
+     * Records an annotation.
+     *
+     * @param level annotation command
+     * @param file file or null
+     * @param line line or null
+     * @param message message or null
+     * @return true if the annotation should be printed
+     */
+    final boolean accept(final String level, final String file, final Integer line, final String message){
+        final Key key = new Key(level, file, line, message);
+        final Entry existing = annotations.get(key);
+        if(existing != null){
+            existing.occurrences.increment();
+            return false;
+        }
+        final Level counts = levels.computeIfAbsent(level, l -> new Level());
+        // racing threads may each add one more before this is seen, which still keeps the map bounded
+        if(counts.emitted.get() >= budget && counts.tracked.get() >= maxTracked){
+            counts.untracked.increment();
+            return false;
+        }
+        final Entry entry = new Entry(key, message);
+        final Entry raced = annotations.putIfAbsent(key, entry);
+        if(raced != null){
+            raced.occurrences.increment();
+            return false;
+        }
+        if(counts.emitted.incrementAndGet() > budget){
+            entry.overBudget = true;
+            counts.tracked.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Prints how many times in total each annotation occurred, for every annotation that was suppressed at least once, and resets the counts.
+     */
+    final void printSummary(){
+        final List<Entry> suppressed = new ArrayList<>();
+        for(final Entry entry : annotations.values())
+            if(entry.overBudget || entry.occurrences.sum() > 1)
+                suppressed.add(entry);
+        final Map<String,Long> untracked = new TreeMap<>();
+        for(final Map.Entry<String,Level> level : levels.entrySet()){
+            final long count = level.getValue().untracked.sum();
+            if(count > 0)
+                untracked.put(level.getKey(), count);
+        }
+        annotations.clear();
+        levels.clear();
+        if(suppressed.isEmpty() && untracked.isEmpty())
+            return;
+
+        suppressed.sort(Comparator.comparingLong((Entry e) -> e.occurrences.sum()).reversed());
+        Workflow.startGroup("Suppressed annotations (" + (suppressed.size() + untracked.size()) + ")", () -> {
+            for(final Entry entry : suppressed){
+                final StringBuilder line = new StringBuilder()
+                    .append(entry.key.level);
+                if(entry.key.file != null){
+                    line.append(' ').append(entry.key.file);
+                    if(entry.key.line != null)
+                        line.append("#L").append(entry.key.line);
+                }
+                line.append(" x").append(entry.occurrences.sum());
+                if(entry.overBudget)
+                    line.append(" (over limit)");
+                line.append(" : ").append(entry.summary);
+                Workflow.info(line.toString());
+            }
+            for(final Map.Entry<String,Long> level : untracked.entrySet())
+                Workflow.info(level.getKey() + " x" + level.getValue() + " (over limit) : other annotations");
+        });
+    }
+
+    private static final class Level {
+
+        private final AtomicInteger emitted = new AtomicInteger();
+        private final AtomicInteger tracked = new AtomicInteger();
+        private final LongAdder untracked   = new LongAdder();
+
+    }
+
+    private static final class Key {
+
+        private final String level, file, message;
+        private final Integer line;
+
+        Key(final String level, final String file, final Integer line, final String message){
+            this.level   = level;
+            this.file    = file;
+            this.line    = line;
+            this.message = message;
+        }
+
+        @Override
+        public final boolean equals(final Object o){
+            if(this == o)
+                return true;
+            if(!(o instanceof Key))
+                return false;
+            final Key key = (Key) o;
+            return level.equals(key.level) &&
+                   Objects.equals(file, key.file) &&
+                   Objects.equals(line, key.line) &&
+                   Objects.equals(message, key.message);
+        }
+
+        @Override
+        public final int hashCode(){
+            return 31 * (31 * (31 * level.hashCode() + Objects.hashCode(file)) + Objects.hashCode(line)) + Objects.hashCode(message);
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+        private final String summary;
+        // including the first, which was printed unless over budget
+        private final LongAdder occurrences = new LongAdder();
+        private volatile boolean overBudget = false;
+
+        Entry(final Key key, final String message){
+            this.key = key;
+            occurrences.increment();
+            // only the first line is kept for the summary
+            if(message == null)
+                summary = "";
+            else{
+                int end = message.indexOf('\n');
+                end = end == -1 ? message.length() : end;
+                summary = message.substring(0, Math.min(end, 200)).trim();
+            }
+        }
+
+    }
+
+}
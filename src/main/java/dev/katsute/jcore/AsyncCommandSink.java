@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A command sink that hands lines to a single background writer so calling threads never wait on the target. Lines are queued on a bounded lock-free queue; when the queue is full the {@link Backpressure} policy decides what happens. Only debug messages, annotations, and plain log lines are ever dropped; control commands such as {@code add-mask}, {@code stop-commands}, {@code group}, and {@code endgroup} are always queued, even past the capacity. Pending lines are always written before the JVM exits.
+ *
+ * @see CommandSink
+ * @see Workflow#setCommandSink(CommandSink)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public class AsyncCommandSink implements CommandSink, AutoCloseable {
+
+    private static final String separator = System.lineSeparator();
+
+    private static final int batchSize = 256;
+
+    private final CommandSink target;
+    private final int capacity;
+    private final Backpressure backpressure;
+
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size  = new AtomicInteger();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong dropped   = new AtomicLong();
+
+    // signalled by the writer whenever lines leave the queue
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile boolean writerParked = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates an asynchronous sink that writes to {@link System#out}, holding at most 8192 lines and blocking when full.
+     *
+     * @since 2.1.0
+     */
+    public AsyncCommandSink(){
+        this(StandardOutputSink.INSTANCE, 8192, Backpressure.BLOCK);
+    }
+
+    /**
+     * Creates an asynchronous sink that writes to {@link System#out}.
+     *
+     * @param capacity maximum number of queued lines
+     * @param backpressure what to do when the queue is full
+     *
+     * @see Backpressure
+     * @since 2.1.0
+     */
+    public AsyncCommandSink(final int capacity, final Backpressure backpressure){
+        this(StandardOutputSink.INSTANCE, capacity, backpressure);
+    }
+
+    /**
+     * Creates an asynchronous sink.
+     *
+     * @param target sink the background writer writes to
+     * @param capacity maximum number of queued lines
+     * @param backpressure what to do when the queue is full
+     *
+     * @see Backpressure
+     * @since 2.1.0
+     */
+    public AsyncCommandSink(final CommandSink target, final int capacity, final Backpressure backpressure){
+        if(target == null)
+            throw new NullPointerException("Target sink must not be null");
+        if(backpressure == null)
+            throw new NullPointerException("Backpressure policy must not be null");
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+
+        this.target       = target;
+        this.capacity     = capacity;
+        this.backpressure = backpressure;
+
+        writer = new Thread(this::drain, "jcore-command-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(shutdownHook = new Thread(this::stop, "jcore-command-shutdown"));
+    }
+
+    @Override
+    public final void write(final CharSequence line){
+        final String str = line.toString();
+        if(closed){
+            writeClosed(str);
+            return;
+        }
+
+        // control commands are never dropped and never wait for room
+        if(!isDroppable(str)){
+            size.incrementAndGet();
+            enqueue(str);
+            return;
+        }
+
+        while(true){
+            final int n = size.get();
+            if(n < capacity){
+                if(size.compareAndSet(n, n + 1)){
+                    enqueue(str);
+                    return;
+                }
+                continue;
+            }
+
+            // queue is full
+            switch(backpressure){
+                case DROP_DEBUG:
+                    if(isCommand(str, "debug")){
+                        dropped.incrementAndGet();
+                        return;
+                    }
+                    // fall through, other lines block
+                case BLOCK:
+                    if(closed){
+                        writeClosed(str);
+                        return;
+                    }else if(Thread.currentThread() == writer){
+                        synchronized(target){
+                            target.write(str);
+                        }
+                        return;
+                    }
+                    awaitProgress(() -> size.get() >= capacity && !closed);
+                    break;
+                case DROP_OLDEST:
+                    if(dropOldest()){
+                        // takes the place of the dropped line
+                        size.incrementAndGet();
+                        enqueue(str);
+                    }else // only control commands are queued, so the new line is the oldest that can go
+                        dropped.incrementAndGet();
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Waits until every line queued before this call has been written, then flushes the target.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public final void flush(){
+        if(Thread.currentThread() == writer)
+            return;
+        final long mark = submitted.get();
+        awaitProgress(() -> completed.get() < mark);
+        synchronized(target){
+            target.flush();
+        }
+    }
+
+    /**
+     * Writes all queued lines and stops the background writer. Lines written after the sink is closed are passed directly to the target sink, after any lines that are still queued.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public final void close(){
+        stop();
+        try{
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }catch(final IllegalStateException ignored){ } // already shutting down
+    }
+
+    /**
+     * Returns how many lines were discarded because the queue was full.
+     *
+     * @return number of dropped lines
+     *
+     * @see Backpressure
+     * @since 2.1.0
+     */
+    public final long getDropped(){
+        return dropped.get();
+    }
+
+    private void stop(){
+        if(closed)
+            return;
+        closed = true;
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while(writer.isAlive())
+            try{
+                writer.join();
+            }catch(final InterruptedException e){
+                interrupted = true;
+            }
+        signalProgress(0);
+        // anything that raced past the closed check is still written
+        synchronized(target){
+            drainQueued();
+            if(dropped.get() > 0)
+                target.write("::warning::Dropped " + dropped.get() + " workflow commands because the output queue was full");
+            target.flush();
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void drain(){
+        final StringBuilder batch = new StringBuilder(8192);
+        try{
+            while(true){
+                final int polled;
+                // polled lines are written before anyone else can take the target
+                synchronized(target){
+                    if((polled = poll(batch)) > 0){
+                        target.write(batch);
+                        if(queue.isEmpty())
+                            target.flush();
+                    }
+                }
+                if(polled > 0){
+                    signalProgress(polled);
+                    batch.setLength(0);
+                    if(batch.capacity() > 64 * 1024){
+                        batch.trimToSize();
+                        batch.ensureCapacity(8192);
+                    }
+                }else if(closed)
+                    return;
+                else{
+                    writerParked = true;
+                    if(queue.isEmpty() && !closed)
+                        LockSupport.park(this);
+                    writerParked = false;
+                }
+            }
+        }finally{
+            // release anyone waiting on a writer that is no longer running
+            signalProgress(0);
+        }
+    }
+
+    private void writeClosed(final String line){
+        synchronized(target){
+            // lines queued before the sink closed go first
+            drainQueued();
+            target.write(line);
+        }
+    }
+
+    // caller must hold the target lock
+    private void drainQueued(){
+        final StringBuilder batch = new StringBuilder();
+        int polled;
+        while((polled = poll(batch)) > 0){
+            target.write(batch);
+            signalProgress(polled);
+            batch.setLength(0);
+        }
+    }
+
+    private void enqueue(final String line){
+        submitted.incrementAndGet();
+        queue.offer(line);
+        if(writerParked)
+            LockSupport.unpark(writer);
+    }
+
+    private boolean dropOldest(){
+        for(final String line : queue)
+            // the writer may take a line first, then look further back
+            if(isDroppable(line) && queue.remove(line)){
+                size.decrementAndGet();
+                dropped.incrementAndGet();
+                signalProgress(1);
+                return true;
+            }
+        return false;
+    }
+
+    private void awaitProgress(final BooleanSupplier waiting){
+        lock.lock();
+        try{
+            LockSupport.unpark(writer);
+            while(waiting.getAsBoolean() && writer.isAlive())
+                progress.awaitUninterruptibly();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private void signalProgress(final int completed){
+        lock.lock();
+        try{
+            this.completed.addAndGet(completed);
+            progress.signalAll();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private static boolean isDroppable(final String line){
+        return !line.startsWith("::") ||
+            isCommand(line, "debug") ||
+            isCommand(line, "notice") ||
+            isCommand(line, "warning") ||
+            isCommand(line, "error");
+    }
+
+    private static boolean isCommand(final String line, final String command){
+        final int end = 2 + command.length();
+        if(line.length() <= end || !line.startsWith(command, 2))
+            return false;
+        final char ch = line.charAt(end);
+        return ch == ':' || ch == ' ';
+    }
+
+    private int poll(final StringBuilder batch){
+        int polled = 0;
+        String line;
+        while(polled < batchSize && (line = queue.poll()) != null){
+            size.decrementAndGet();
+            if(polled++ > 0)
+                batch.append(separator);
+            batch.append(line);
+        }
+        return polled;
+    }
+
+    @Override
+    public String toString(){
+        return "AsyncCommandSink{" +
+               "target=" + target +
+               ", capacity=" + capacity +
+               ", backpressure=" + backpressure +
+               ", dropped=" + dropped +
+               '}';
+    }
+
+    /**
+     * What an {@link AsyncCommandSink} does when its queue is full.
+     *
+     * @see AsyncCommandSink
+     * @author Katsute
+     * @since 2.1.0
+     * @version 2.1.0
+     */
+    public enum Backpressure {
+
+        /**
+         * Wait until the writer makes room.
+         */
+        BLOCK,
+
+        /**
+         * Discard debug messages and wait for room for everything else.
+         */
+        DROP_DEBUG,
+
+        /**
+         * Discard the oldest queued debug message, annotation, or plain log line. If only control commands are queued the new line is discarded instead.
+         */
+        DROP_OLDEST
+
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+/**
+ * Builds a command message that stops growing once its escaped UTF-8 size would pass a byte budget, ending with a truncation marker instead.
+ */
+final class BoundedMessage {
+
+    private static final String marker = "\n... message truncated";
+
+    private final StringBuilder builder = new StringBuilder();
+    private final int budget;
+
+    private int bytes = 0;
+    private boolean full = false;
+
+    BoundedMessage(final int maxBytes){
+        this.budget = maxBytes - escapedLength(marker);
+    }
+
+    final boolean isFull(){
+        return full;
+    }
+
+    final BoundedMessage append(final Object value){
+        return append(String.valueOf(value));
+    }
+
+    final BoundedMessage append(final CharSequence value){
+        if(full)
+            return this;
+        final int len = value.length();
+        int size = 0;
+        for(int i = 0; i < len; i++)
+            size += escapedLength(value.charAt(i));
+        if(bytes + size <= budget){
+            builder.append(value);
+            bytes += size;
+        }else{ // keep the part that fits
+            for(int i = 0; i < len; i++){
+                final int next = escapedLength(value.charAt(i));
+                if(bytes + next > budget)
+                    break;
+                builder.append(value.charAt(i));
+                bytes += next;
+            }
+            if(builder.length() > 0 && Character.isHighSurrogate(builder.charAt(builder.length() - 1)))
+                builder.setLength(builder.length() - 1);
+            builder.append(marker);
+            full = true;
+        }
+        return this;
+    }
+
+    final CharSequence toCharSequence(){
+        return builder;
+    }
+
+    // size after workflow command escaping and UTF-8 encoding
+    private static int escapedLength(final char ch){
+        if(ch == '%' || ch == '\r' || ch == '\n')
+            return 3;
+        else if(ch < 0x80)
+            return 1;
+        else if(ch < 0x800 || Character.isSurrogate(ch)) // a surrogate pair is 4 bytes
+            return 2;
+        else
+            return 3;
+    }
+
+    private static int escapedLength(final CharSequence value){
+        int size = 0;
+        for(int i = 0, len = value.length(); i < len; i++)
+            size += escapedLength(value.charAt(i));
+        return size;
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.concurrent.*;
+
+/**
+ * A command sink that batches lines and writes them to another sink together. Pending lines are written when the buffer reaches a size threshold, when the oldest line reaches a time threshold, when a group ends, and when the JVM shuts down.
+ *
+ * @see CommandSink
+ * @see Workflow#setCommandSink(CommandSink)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public class BufferedCommandSink implements CommandSink, AutoCloseable {
+
+    private static final String separator = System.lineSeparator();
+
+    private final CommandSink target;
+    private final int maxChars;
+    private final long maxDelay;
+
+    private final StringBuilder buffer;
+    private long oldest;
+    private boolean closed = false;
+
+    private final ScheduledExecutorService scheduler;
+    private final Thread shutdownHook;
+
+    /**
+     * Creates a buffered sink that writes to {@link System#out}, holding at most 8192 characters for at most one second.
+     *
+     * @since 2.1.0
+     */
+    public BufferedCommandSink(){
+        this(StandardOutputSink.INSTANCE, 8192, 1000);
+    }
+
+    /**
+     * Creates a buffered sink that writes to {@link System#out}.
+     *
+     * @param maxChars number of buffered characters that triggers a flush
+     * @param maxDelayMillis how long a line may stay in the buffer before it is flushed, or 0 to only flush by size
+     *
+     * @since 2.1.0
+     */
+    public BufferedCommandSink(final int maxChars, final long maxDelayMillis){
+        this(StandardOutputSink.INSTANCE, maxChars, maxDelayMillis);
+    }
+
+    /**
+     * Creates a buffered sink.
+     *
+     * @param target sink to write batches to
+     * @param maxChars number of buffered characters that triggers a flush
+     * @param maxDelayMillis how long a line may stay in the buffer before it is flushed, or 0 to only flush by size
+     *
+     * @since 2.1.0
+     */
+    public BufferedCommandSink(final CommandSink target, final int maxChars, final long maxDelayMillis){
+        if(target == null)
+            throw new NullPointerException("Target sink must not be null");
+        if(maxChars <= 0)
+            throw new IllegalArgumentException("Buffer size must be greater than 0");
+        if(maxDelayMillis < 0)
+            throw new IllegalArgumentException("Delay must not be negative");
+
+        this.target   = target;
+        this.maxChars = maxChars;
+        this.maxDelay = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.buffer   = new StringBuilder(Math.min(maxChars, 64 * 1024) + 256);
+
+        if(maxDelayMillis > 0){
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "jcore-command-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushExpired, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS);
+        }else
+            scheduler = null;
+
+        Runtime.getRuntime().addShutdownHook(shutdownHook = new Thread(this::flush, "jcore-command-shutdown"));
+    }
+
+    @Override
+    public final void write(final CharSequence line){
+        synchronized(buffer){
+            if(closed){
+                target.write(line);
+                return;
+            }
+            if(buffer.length() == 0)
+                oldest = System.nanoTime();
+            else
+                buffer.append(separator);
+            buffer.append(line);
+
+            if(buffer.length() >= maxChars || (maxDelay > 0 && System.nanoTime() - oldest >= maxDelay))
+                flushBuffer();
+        }
+    }
+
+    @Override
+    public final void flush(){
+        synchronized(buffer){
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Writes any pending lines and stops the background flush. Lines written after the sink is closed are passed directly to the target sink.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public final void close(){
+        synchronized(buffer){
+            if(closed)
+                return;
+            flushBuffer();
+            closed = true;
+        }
+        if(scheduler != null)
+            scheduler.shutdown();
+        try{
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }catch(final IllegalStateException ignored){ } // already shutting down
+    }
+
+    private void flushExpired(){
+        synchronized(buffer){
+            if(buffer.length() > 0 && System.nanoTime() - oldest >= maxDelay)
+                flushBuffer();
+        }
+    }
+
+    private void flushBuffer(){
+        if(buffer.length() > 0){
+            target.write(buffer);
+            buffer.setLength(0);
+            if(buffer.capacity() > maxChars * 2){
+                buffer.trimToSize();
+                buffer.ensureCapacity(Math.min(maxChars, 64 * 1024) + 256);
+            }
+        }
+        target.flush();
+    }
+
+    @Override
+    public String toString(){
+        return "BufferedCommandSink{" +
+               "target=" + target +
+               ", maxChars=" + maxChars +
+               ", maxDelay=" + TimeUnit.NANOSECONDS.toMillis(maxDelay) +
+               '}';
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * A command sink that encodes lines to UTF-8 and writes them straight to the standard output file descriptor, skipping the {@link PrintStream} and its encoder. Lines are encoded into pooled direct buffers and a line longer than one buffer is sent with a single gathering write. Writes are serialized with {@link System#out} and anything already printed to it is flushed first, so output from both stays in order.
+ * <br>
+ * Since this writes to the file descriptor directly, redirecting {@link System#out} with {@link System#setOut(PrintStream)} does not affect this sink.
+ *
+ * @see CommandSink
+ * @see Workflow#setCommandSink(CommandSink)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public class ChannelCommandSink implements CommandSink {
+
+    // held for the life of the JVM, the descriptor itself is never closed
+    private static final FileOutputStream stdout = new FileOutputStream(FileDescriptor.out);
+
+    private static final int maxPooled = 16;
+
+    private static final byte[] separator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final GatheringByteChannel channel;
+    private final Supplier<PrintStream> out;
+    private final int bufferSize;
+
+    private final char[] chars;
+    private final byte[] bytes;
+
+    private final ArrayDeque<ByteBuffer> pool = new ArrayDeque<>();
+    private ByteBuffer[] pending = new ByteBuffer[4];
+
+    /**
+     * Creates a sink that writes to the standard output file descriptor.
+     *
+     * @since 2.1.0
+     */
+    public ChannelCommandSink(){
+        this(stdout.getChannel(), () -> System.out, 8 * 1024);
+    }
+
+    ChannelCommandSink(final GatheringByteChannel channel, final Supplier<PrintStream> out, final int bufferSize){
+        this.channel    = channel;
+        this.out        = out;
+        this.bufferSize = bufferSize;
+        this.chars      = new char[bufferSize / 4];
+        this.bytes      = new byte[bufferSize / 4 * 4];
+    }
+
+    @Override
+    public final void write(final CharSequence line){
+        final PrintStream out = this.out.get();
+        synchronized(out){
+            synchronized(this){
+                final int count = encode(line);
+                try{
+                    out.flush();
+                    long remaining = 0;
+                    for(int i = 0; i < count; i++)
+                        remaining += pending[i].remaining();
+                    while(remaining > 0)
+                        remaining -= count == 1 ? channel.write(pending[0]) : channel.write(pending, 0, count);
+                }catch(final IOException e){
+                    throw new UncheckedIOException("Failed to write to standard output", e);
+                }finally{
+                    release(count);
+                }
+            }
+        }
+    }
+
+    @Override
+    public final void flush(){
+        out.get().flush(); // channel writes are unbuffered
+    }
+
+    // encodes the line and separator into pending buffers, returns the number of buffers used
+    private int encode(final CharSequence line){
+        final char[] chars = this.chars;
+        final byte[] bytes = this.bytes;
+        final int len = line.length();
+        int count = 0;
+        ByteBuffer buffer = pending[count++] = acquire();
+        for(int off = 0; off < len; ){
+            final int n = Math.min(chars.length, len - off);
+            getChars(line, off, off + n, chars);
+            off += n;
+
+            int pos = 0;
+            for(int i = 0; i < n; i++){
+                final char ch = chars[i];
+                if(ch < 0x80)
+                    bytes[pos++] = (byte) ch;
+                else if(ch < 0x800){
+                    bytes[pos++] = (byte) (0xC0 | ch >> 6);
+                    bytes[pos++] = (byte) (0x80 | ch & 0x3F);
+                }else if(Character.isHighSurrogate(ch) && (i + 1 < n ? Character.isLowSurrogate(chars[i + 1]) : off < len && Character.isLowSurrogate(line.charAt(off)))){
+                    final int cp;
+                    if(i + 1 < n)
+                        cp = Character.toCodePoint(ch, chars[++i]);
+                    else // pair split across chunks
+                        cp = Character.toCodePoint(ch, line.charAt(off++));
+                    bytes[pos++] = (byte) (0xF0 | cp >> 18);
+                    bytes[pos++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | cp & 0x3F);
+                }else if(Character.isSurrogate(ch))
+                    bytes[pos++] = '?'; // unpaired surrogate, same as String#getBytes
+                else{
+                    bytes[pos++] = (byte) (0xE0 | ch >> 12);
+                    bytes[pos++] = (byte) (0x80 | ch >> 6 & 0x3F);
+                    bytes[pos++] = (byte) (0x80 | ch & 0x3F);
+                }
+            }
+            for(int written = 0; written < pos; ){
+                if(!buffer.hasRemaining())
+                    buffer = next(count++);
+                final int put = Math.min(buffer.remaining(), pos - written);
+                buffer.put(bytes, written, put);
+                written += put;
+            }
+        }
+        if(buffer.remaining() < separator.length)
+            buffer = next(count++);
+        buffer.put(separator);
+
+        for(int i = 0; i < count; i++)
+            pending[i].flip();
+        return count;
+    }
+
+    private static void getChars(final CharSequence seq, final int start, final int end, final char[] dst){
+        if(seq instanceof String)
+            ((String) seq).getChars(start, end, dst, 0);
+        else if(seq instanceof StringBuilder)
+            ((StringBuilder) seq).getChars(start, end, dst, 0);
+        else
+            for(int i = start; i < end; i++)
+                dst[i - start] = seq.charAt(i);
+    }
+
+    private ByteBuffer next(final int index){
+        if(index == pending.length)
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        return pending[index] = acquire();
+    }
+
+    private ByteBuffer acquire(){
+        final ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    private void release(final int count){
+        for(int i = 0; i < count; i++){
+            final ByteBuffer buffer = pending[i];
+            pending[i] = null;
+            buffer.clear();
+            if(pool.size() < maxPooled)
+                pool.push(buffer);
+        }
+    }
+
+    synchronized final int getPooled(){
+        return pool.size();
+    }
+
+    @Override
+    public String toString(){
+        return "ChannelCommandSink{}";
+    }
+
+}
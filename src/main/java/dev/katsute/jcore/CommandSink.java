@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+/**
+ * A destination for workflow commands.
+ *
+ * @see Workflow#setCommandSink(CommandSink)
+ * @see BufferedCommandSink
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public interface CommandSink {
+
+    /**
+     * Writes a line followed by a line separator. The character sequence may be reused by the caller after this method returns, implementations must copy it if it is retained.
+     *
+     * @param line line to write
+     *
+     * @since 2.1.0
+     */
+    void write(final CharSequence line);
+
+    /**
+     * Writes any pending lines.
+     *
+     * @since 2.1.0
+     */
+    void flush();
+
+}
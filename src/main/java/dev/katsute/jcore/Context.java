@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.nio.file.*;
+import java.util.function.Supplier;
+
+/**
+ * The workflow run context from the {@code GITHUB_} and {@code RUNNER_} environment variables. Each value is read the first time it is requested; the event payload is read with {@link #getEvent(String)} without parsing the whole file.
+ *
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public abstract class Context {
+
+    private Context(){ }
+
+    private static final Lazy<String> action = new Lazy<>(() -> System.getenv("GITHUB_ACTION"));
+    private static final Lazy<String> actionPath = new Lazy<>(() -> System.getenv("GITHUB_ACTION_PATH"));
+    private static final Lazy<String> actionRepository = new Lazy<>(() -> System.getenv("GITHUB_ACTION_REPOSITORY"));
+    private static final Lazy<String> actor = new Lazy<>(() -> System.getenv("GITHUB_ACTOR"));
+    private static final Lazy<String> apiUrl = new Lazy<>(() -> System.getenv("GITHUB_API_URL"));
+    private static final Lazy<String> baseRef = new Lazy<>(() -> System.getenv("GITHUB_BASE_REF"));
+    private static final Lazy<String> env = new Lazy<>(() -> System.getenv("GITHUB_ENV"));
+    private static final Lazy<String> eventName = new Lazy<>(() -> System.getenv("GITHUB_EVENT_NAME"));
+    private static final Lazy<String> eventPath = new Lazy<>(() -> System.getenv("GITHUB_EVENT_PATH"));
+    private static final Lazy<String> graphqlUrl = new Lazy<>(() -> System.getenv("GITHUB_GRAPHQL_URL"));
+    private static final Lazy<String> headRef = new Lazy<>(() -> System.getenv("GITHUB_HEAD_REF"));
+    private static final Lazy<String> job = new Lazy<>(() -> System.getenv("GITHUB_JOB"));
+    private static final Lazy<String> output = new Lazy<>(() -> System.getenv("GITHUB_OUTPUT"));
+    private static final Lazy<String> path = new Lazy<>(() -> System.getenv("GITHUB_PATH"));
+    private static final Lazy<String> ref = new Lazy<>(() -> System.getenv("GITHUB_REF"));
+    private static final Lazy<String> refName = new Lazy<>(() -> System.getenv("GITHUB_REF_NAME"));
+    private static final Lazy<Boolean> refProtected = new Lazy<>(() -> "true".equals(System.getenv("GITHUB_REF_PROTECTED")));
+    private static final Lazy<String> refType = new Lazy<>(() -> System.getenv("GITHUB_REF_TYPE"));
+    private static final Lazy<String> repository = new Lazy<>(() -> System.getenv("GITHUB_REPOSITORY"));
+    private static final Lazy<String> repositoryOwner = new Lazy<>(() -> System.getenv("GITHUB_REPOSITORY_OWNER"));
+    private static final Lazy<Integer> retentionDays = new Lazy<>(() -> parseInt(System.getenv("GITHUB_RETENTION_DAYS")));
+    private static final Lazy<Integer> runAttempt = new Lazy<>(() -> parseInt(System.getenv("GITHUB_RUN_ATTEMPT")));
+    private static final Lazy<Long> runId = new Lazy<>(() -> parseLong(System.getenv("GITHUB_RUN_ID")));
+    private static final Lazy<Long> runNumber = new Lazy<>(() -> parseLong(System.getenv("GITHUB_RUN_NUMBER")));
+    private static final Lazy<String> serverUrl = new Lazy<>(() -> System.getenv("GITHUB_SERVER_URL"));
+    private static final Lazy<String> sha = new Lazy<>(() -> System.getenv("GITHUB_SHA"));
+    private static final Lazy<String> state = new Lazy<>(() -> System.getenv("GITHUB_STATE"));
+    private static final Lazy<String> stepSummary = new Lazy<>(() -> System.getenv("GITHUB_STEP_SUMMARY"));
+    private static final Lazy<String> triggeringActor = new Lazy<>(() -> System.getenv("GITHUB_TRIGGERING_ACTOR"));
+    private static final Lazy<String> workflow = new Lazy<>(() -> System.getenv("GITHUB_WORKFLOW"));
+    private static final Lazy<String> workspace = new Lazy<>(() -> System.getenv("GITHUB_WORKSPACE"));
+    private static final Lazy<String> runnerArch = new Lazy<>(() -> System.getenv("RUNNER_ARCH"));
+    private static final Lazy<String> runnerEnvironment = new Lazy<>(() -> System.getenv("RUNNER_ENVIRONMENT"));
+    private static final Lazy<String> runnerName = new Lazy<>(() -> System.getenv("RUNNER_NAME"));
+    private static final Lazy<String> runnerOs = new Lazy<>(() -> System.getenv("RUNNER_OS"));
+    private static final Lazy<String> runnerTemp = new Lazy<>(() -> System.getenv("RUNNER_TEMP"));
+    private static final Lazy<String> runnerToolCache = new Lazy<>(() -> System.getenv("RUNNER_TOOL_CACHE"));
+
+    private static final Lazy<Boolean> actions = new Lazy<>(() -> "true".equals(System.getenv("GITHUB_ACTIONS")));
+
+    private static final Lazy<JsonPointerReader> event = new Lazy<>(() -> {
+        final String path = getEventPath();
+        return path != null && Files.isRegularFile(Paths.get(path)) ? JsonPointerReader.open(Paths.get(path)) : null;
+    });
+
+    private static final Lazy<String> blobUrl = new Lazy<>(() ->
+        (getServerUrl() != null ? getServerUrl() : "https://github.com") + '/' + getRepository() + "/blob/" + getSHA() + '/'
+    );
+
+    /**
+     * Returns the name of the action currently running, or the id of the step ({@code GITHUB_ACTION}).
+     *
+     * @return name of the action currently running, or the id of the step, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getAction(){
+        return action.get();
+    }
+
+    /**
+     * Returns the path where the action is located, only set for composite actions ({@code GITHUB_ACTION_PATH}).
+     *
+     * @return path where the action is located, only set for composite actions, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getActionPath(){
+        return actionPath.get();
+    }
+
+    /**
+     * Returns the owner and repository name of the action being run ({@code GITHUB_ACTION_REPOSITORY}).
+     *
+     * @return owner and repository name of the action being run, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getActionRepository(){
+        return actionRepository.get();
+    }
+
+    /**
+     * Returns the name of the person or app that started the workflow ({@code GITHUB_ACTOR}).
+     *
+     * @return name of the person or app that started the workflow, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getActor(){
+        return actor.get();
+    }
+
+    /**
+     * Returns the REST API URL ({@code GITHUB_API_URL}).
+     *
+     * @return REST API URL, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getApiUrl(){
+        return apiUrl.get();
+    }
+
+    /**
+     * Returns the base branch of a pull request ({@code GITHUB_BASE_REF}).
+     *
+     * @return base branch of a pull request, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getBaseRef(){
+        return baseRef.get();
+    }
+
+    /**
+     * Returns the path of the file that sets environment variables ({@code GITHUB_ENV}).
+     *
+     * @return path of the file that sets environment variables, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getEnvFile(){
+        return env.get();
+    }
+
+    /**
+     * Returns the name of the event that triggered the workflow ({@code GITHUB_EVENT_NAME}).
+     *
+     * @return name of the event that triggered the workflow, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getEventName(){
+        return eventName.get();
+    }
+
+    /**
+     * Returns the path of the file with the event payload ({@code GITHUB_EVENT_PATH}).
+     *
+     * @return path of the file with the event payload, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getEventPath(){
+        return eventPath.get();
+    }
+
+    /**
+     * Returns the GraphQL API URL ({@code GITHUB_GRAPHQL_URL}).
+     *
+     * @return GraphQL API URL, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getGraphqlUrl(){
+        return graphqlUrl.get();
+    }
+
+    /**
+     * Returns the head branch of a pull request ({@code GITHUB_HEAD_REF}).
+     *
+     * @return head branch of a pull request, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getHeadRef(){
+        return headRef.get();
+    }
+
+    /**
+     * Returns the id of the current job ({@code GITHUB_JOB}).
+     *
+     * @return id of the current job, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getJob(){
+        return job.get();
+    }
+
+    /**
+     * Returns the path of the file that sets step outputs ({@code GITHUB_OUTPUT}).
+     *
+     * @return path of the file that sets step outputs, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getOutputFile(){
+        return output.get();
+    }
+
+    /**
+     * Returns the path of the file that adds to the system path ({@code GITHUB_PATH}).
+     *
+     * @return path of the file that adds to the system path, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getPathFile(){
+        return path.get();
+    }
+
+    /**
+     * Returns the fully formed ref of the branch or tag that triggered the workflow ({@code GITHUB_REF}).
+     *
+     * @return fully formed ref of the branch or tag that triggered the workflow, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRef(){
+        return ref.get();
+    }
+
+    /**
+     * Returns the short ref name of the branch or tag that triggered the workflow ({@code GITHUB_REF_NAME}).
+     *
+     * @return short ref name of the branch or tag that triggered the workflow, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRefName(){
+        return refName.get();
+    }
+
+    /**
+     * Returns if branch protections are configured for the ref ({@code GITHUB_REF_PROTECTED}).
+     *
+     * @return if branch protections are configured for the ref
+     *
+     * @since 2.1.0
+     */
+    public static boolean isRefProtected(){
+        return refProtected.get();
+    }
+
+    /**
+     * Returns the type of ref that triggered the workflow, {@code branch} or {@code tag} ({@code GITHUB_REF_TYPE}).
+     *
+     * @return type of ref that triggered the workflow, {@code branch} or {@code tag}, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRefType(){
+        return refType.get();
+    }
+
+    /**
+     * Returns the owner and repository name ({@code GITHUB_REPOSITORY}).
+     *
+     * @return owner and repository name, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRepository(){
+        return repository.get();
+    }
+
+    /**
+     * Returns the repository owner's name ({@code GITHUB_REPOSITORY_OWNER}).
+     *
+     * @return repository owner's name, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRepositoryOwner(){
+        return repositoryOwner.get();
+    }
+
+    /**
+     * Returns the number of days that logs and artifacts are kept ({@code GITHUB_RETENTION_DAYS}).
+     *
+     * @return number of days that logs and artifacts are kept, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static Integer getRetentionDays(){
+        return retentionDays.get();
+    }
+
+    /**
+     * Returns the attempt number of the workflow run ({@code GITHUB_RUN_ATTEMPT}).
+     *
+     * @return attempt number of the workflow run, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static Integer getRunAttempt(){
+        return runAttempt.get();
+    }
+
+    /**
+     * Returns the unique id of the workflow run ({@code GITHUB_RUN_ID}).
+     *
+     * @return unique id of the workflow run, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static Long getRunId(){
+        return runId.get();
+    }
+
+    /**
+     * Returns the number of the workflow run ({@code GITHUB_RUN_NUMBER}).
+     *
+     * @return number of the workflow run, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static Long getRunNumber(){
+        return runNumber.get();
+    }
+
+    /**
+     * Returns the URL of the GitHub server ({@code GITHUB_SERVER_URL}).
+     *
+     * @return URL of the GitHub server, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getServerUrl(){
+        return serverUrl.get();
+    }
+
+    /**
+     * Returns the commit SHA that triggered the workflow ({@code GITHUB_SHA}).
+     *
+     * @return commit SHA that triggered the workflow, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getSHA(){
+        return sha.get();
+    }
+
+    /**
+     * Returns the path of the file that saves state ({@code GITHUB_STATE}).
+     *
+     * @return path of the file that saves state, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getStateFile(){
+        return state.get();
+    }
+
+    /**
+     * Returns the path of the job summary file ({@code GITHUB_STEP_SUMMARY}).
+     *
+     * @return path of the job summary file, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getStepSummaryFile(){
+        return stepSummary.get();
+    }
+
+    /**
+     * Returns the name of the person that started the workflow run ({@code GITHUB_TRIGGERING_ACTOR}).
+     *
+     * @return name of the person that started the workflow run, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getTriggeringActor(){
+        return triggeringActor.get();
+    }
+
+    /**
+     * Returns the name of the workflow ({@code GITHUB_WORKFLOW}).
+     *
+     * @return name of the workflow, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getWorkflow(){
+        return workflow.get();
+    }
+
+    /**
+     * Returns the workspace directory ({@code GITHUB_WORKSPACE}).
+     *
+     * @return workspace directory, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getWorkspace(){
+        return workspace.get();
+    }
+
+    /**
+     * Returns the architecture of the runner, like {@code X64} or {@code ARM64} ({@code RUNNER_ARCH}).
+     *
+     * @return architecture of the runner, like {@code X64} or {@code ARM64}, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRunnerArch(){
+        return runnerArch.get();
+    }
+
+    /**
+     * Returns the runner environment, {@code github-hosted} or {@code self-hosted} ({@code RUNNER_ENVIRONMENT}).
+     *
+     * @return runner environment, {@code github-hosted} or {@code self-hosted}, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRunnerEnvironment(){
+        return runnerEnvironment.get();
+    }
+
+    /**
+     * Returns the name of the runner ({@code RUNNER_NAME}).
+     *
+     * @return name of the runner, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRunnerName(){
+        return runnerName.get();
+    }
+
+    /**
+     * Returns the operating system of the runner, like {@code Linux}, {@code Windows}, or {@code macOS} ({@code RUNNER_OS}).
+     *
+     * @return operating system of the runner, like {@code Linux}, {@code Windows}, or {@code macOS}, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRunnerOS(){
+        return runnerOs.get();
+    }
+
+    /**
+     * Returns the temporary directory of the runner ({@code RUNNER_TEMP}).
+     *
+     * @return temporary directory of the runner, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRunnerTemp(){
+        return runnerTemp.get();
+    }
+
+    /**
+     * Returns the tool cache directory of the runner ({@code RUNNER_TOOL_CACHE}).
+     *
+     * @return tool cache directory of the runner, or null if not set
+     *
+     * @since 2.1.0
+     */
+    public static String getRunnerToolCache(){
+        return runnerToolCache.get();
+    }
+
+    /**
+     * Returns if running in GitHub Actions ({@code GITHUB_ACTIONS}).
+     *
+     * @return if running in GitHub Actions
+     *
+     * @since 2.1.0
+     */
+    public static boolean isGitHubActions(){
+        return actions.get();
+    }
+
+    /**
+     * Returns if debug logging is enabled ({@code RUNNER_DEBUG}).
+     *
+     * @return if debug logging is enabled
+     *
+     * @see Workflow#isDebug()
+     * @since 2.1.0
+     */
+    public static boolean isDebug(){
+        return Workflow.isDebug();
+    }
+
+    /**
+     * Returns a value from the event payload. Only the fields on the path to the value are read, and each value is kept after the first lookup.
+     * <br>
+     * Strings are unescaped, numbers and booleans are returned as written, and objects and arrays are returned as JSON.
+     *
+     * @param pointer JSON pointer, like {@code /pull_request/number} or {@code /commits/0/id}
+     * @return value, or null if the value is missing, null, or there is no event payload
+     * @throws IllegalArgumentException if the pointer is malformed
+     * @throws IllegalStateException if the event payload is malformed
+     *
+     * @see #getEventPath()
+     * @since 2.1.0
+     */
+    public static String getEvent(final String pointer){
+        final JsonPointerReader reader = event.get();
+        return reader != null ? reader.get(pointer) : null;
+    }
+
+    // prefix for links to workflow files, computed once for every annotation
+    static String getBlobUrl(){
+        return blobUrl.get();
+    }
+
+    private static Integer parseInt(final String value){
+        try{
+            return value != null ? Integer.valueOf(value.trim()) : null;
+        }catch(final NumberFormatException ignored){
+            return null;
+        }
+    }
+
+    private static Long parseLong(final String value){
+        try{
+            return value != null ? Long.valueOf(value.trim()) : null;
+        }catch(final NumberFormatException ignored){
+            return null;
+        }
+    }
+
+    private static final class Lazy<T> {
+
+        private final Supplier<T> supplier;
+
+        private volatile boolean done = false;
+        private T value;
+
+        private Lazy(final Supplier<T> supplier){
+            this.supplier = supplier;
+        }
+
+        private T get(){
+            if(!done)
+                synchronized(this){
+                    if(!done){
+                        value = supplier.get();
+                        done = true;
+                    }
+                }
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+/**
+ * Built-in exception classification. Superclasses are matched by name so none of the test frameworks need to be on the classpath.
+ */
+final class DefaultExceptionClassifier implements ExceptionClassifier {
+
+    static final DefaultExceptionClassifier INSTANCE = new DefaultExceptionClassifier();
+
+    private DefaultExceptionClassifier(){ }
+
+    @SuppressWarnings("SpellCheckingInspection")
+    @Override
+    public final Classification classify(final Class<? extends Throwable> type){
+        for(Class<?> c = type; c != null && c != Throwable.class; c = c.getSuperclass())
+            switch(c.getName()){
+                // assumptions
+                case "org.opentest4j.IncompleteExecutionException": // TestAbortedException and TestSkippedException
+                case "org.opentest4j.TestAbortedException":
+                case "org.opentest4j.TestSkippedException":
+                case "org.junit.AssumptionViolatedException":
+                case "org.junit.internal.AssumptionViolatedException":
+                case "org.testng.SkipException":
+                    return Classification.ASSUMPTION;
+                // assertions
+                case "org.opentest4j.MultipleFailuresError":
+                case "org.assertj.core.api.SoftAssertionError":
+                case "org.assertj.core.error.AssertJMultipleFailuresError":
+                case "org.spockframework.runtime.SpockAssertionError":
+                case "org.spockframework.runtime.ConditionNotSatisfiedError":
+                case "org.spockframework.runtime.SpockComparisonFailure":
+                case "java.lang.AssertionError":
+                    return Classification.ASSERTION;
+            }
+        return Classification.ERROR;
+    }
+
+    @Override
+    public String toString(){
+        return "DefaultExceptionClassifier{}";
+    }
+
+}
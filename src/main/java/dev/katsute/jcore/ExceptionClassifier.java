@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+/**
+ * Decides how a test exception is annotated: failed assumptions as warnings, and assertions and other exceptions as errors.
+ * <br>
+ * Classifiers are loaded once with {@link java.util.ServiceLoader} from {@code META-INF/services/dev.katsute.jcore.ExceptionClassifier} and asked in order before the built-in rules; the first classification that isn't null is used. The result is kept per exception class, so a classifier must only depend on the class.
+ * <br>
+ * The built-in rules cover JUnit 4 and 5, opentest4j, TestNG, AssertJ, and Spock.
+ *
+ * @see Workflow#annotateTest(ThrowingRunnable)
+ * @see WorkflowExtension
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public interface ExceptionClassifier {
+
+    /**
+     * Classifies an exception class.
+     *
+     * @param type exception class
+     * @return classification, or null to let the next classifier decide
+     *
+     * @since 2.1.0
+     */
+    Classification classify(final Class<? extends Throwable> type);
+
+    /**
+     * How a test exception is annotated.
+     *
+     * @author Katsute
+     * @since 2.1.0
+     * @version 2.1.0
+     */
+    enum Classification {
+
+        /**
+         * Test was skipped or aborted, annotated as a warning.
+         */
+        ASSUMPTION,
+
+        /**
+         * Test failed an assertion, annotated as an error.
+         */
+        ASSERTION,
+
+        /**
+         * Test threw an unexpected exception, annotated as an error.
+         */
+        ERROR
+
+    }
+
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Appends to an environment file such as {@code GITHUB_ENV}. Each file is opened once and kept open for the life of the JVM. Key value pairs and lines are written to the file before the call returns, so child processes and later steps see them even if shutdown hooks never run; only {@link #append(CharSequence)} is batched and written when the batch is large enough, when flushed, and at JVM shutdown. Every write holds a lock on the file, so entries never interleave with those of other processes that lock it too.
+ */
+final class FileCommand {
+
+    private static final String EOL = System.lineSeparator();
+
+    private static final int batchSize  = 8 * 1024;
+    private static final int streamSize = 16 * 1024;
+    private static final int memoryLimit = 1024 * 1024;
+
+    private static final Map<String,FileCommand> files = new ConcurrentHashMap<>();
+
+    static{
+        Runtime.getRuntime().addShutdownHook(new Thread(FileCommand::flushAll, "jcore-file-command-shutdown"));
+    }
+
+    /**
+     * Returns the file command for an environment variable, or null if the variable is not set.
+     *
+     * @param variable environment variable holding the file path
+     * @return file command or null
+     */
+    static FileCommand get(final String variable){
+        final String path = System.getenv(variable);
+        if(path == null || path.isEmpty())
+            return null;
+        return files.computeIfAbsent(variable, v -> new FileCommand(path));
+    }
+
+    static void flushAll(){
+        for(final FileCommand file : files.values())
+            try{
+                file.flush();
+            }catch(final UncheckedIOException ignored){ }
+    }
+
+    static String delimiter(){
+        return "ghadelimiter_" + UUID.randomUUID();
+    }
+
+    //
+
+    private final String path;
+    private final FileChannel channel;
+    private final StringBuilder pending = new StringBuilder(batchSize + 256);
+    private long pendingBytes = 0;
+
+    private FileCommand(final String path){
+        this.path = path;
+        try{
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to open file command '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Appends a key value pair, using a heredoc delimiter if the value spans multiple lines. The pair is written before returning.
+     *
+     * @param key key
+     * @param value value
+     */
+    final void appendKeyValue(final String key, final CharSequence value){
+        if(indexOfLineBreak(value) == -1){
+            synchronized(this){
+                pending.append(key).append('=').append(value).append(EOL);
+                flush();
+            }
+        }else{
+            final String delimiter = delimiter();
+            if(key.contains(delimiter))
+                throw new IllegalArgumentException("Name must not contain the delimiter '" + delimiter + "'");
+            if(value.toString().contains(delimiter))
+                throw new IllegalArgumentException("Value must not contain the delimiter '" + delimiter + "'");
+            synchronized(this){
+                pending
+                    .append(key).append("<<").append(delimiter).append(EOL)
+                    .append(value).append(EOL)
+                    .append(delimiter).append(EOL);
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Streams a key value pair using a heredoc delimiter. The value is read ahead, into memory or a temporary file if it is large, so a delimiter that does not appear in it is picked before anything is written.
+     *
+     * @param key key
+     * @param value value
+     */
+    final void appendKeyValue(final String key, final Reader value){
+        appendKeyValue(key, value, delimiter());
+    }
+
+    // delimiter is tried first, a random one is picked if the value contains it
+    final void appendKeyValue(final String key, final Reader value, final String delimiter){
+        try(final Spool spool = new Spool()){
+            final Writer writer = new OutputStreamWriter(spool, StandardCharsets.UTF_8);
+            final char[] buffer = new char[streamSize / 4];
+            int read;
+            while((read = value.read(buffer)) != -1)
+                writer.write(buffer, 0, read);
+            writer.flush();
+            appendHeredoc(key, pick(key, delimiter, spool), spool.buffer(), spool);
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to write file command '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Streams a key value pair using a heredoc delimiter. The value is read ahead, into memory or a temporary file if it is large, so a delimiter that does not appear in it is picked before anything is written.
+     *
+     * @param key key
+     * @param value UTF-8 value
+     */
+    final void appendKeyValue(final String key, final InputStream value){
+        appendKeyValue(key, value, delimiter());
+    }
+
+    final void appendKeyValue(final String key, final InputStream value, final String delimiter){
+        try(final Spool spool = new Spool()){
+            final byte[] buffer = new byte[streamSize];
+            int read;
+            while((read = value.read(buffer)) != -1)
+                spool.write(buffer, 0, read);
+            appendHeredoc(key, pick(key, delimiter, spool), spool.buffer(), spool);
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to write file command '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Streams a key value pair from a file using a heredoc delimiter. The file is scanned for a delimiter that does not appear in it before anything is written, so it must not change until this returns.
+     *
+     * @param key key
+     * @param value UTF-8 file
+     */
+    final void appendKeyValue(final String key, final Path value){
+        final Source source = () -> Files.newInputStream(value);
+        try{
+            appendHeredoc(key, pick(key, delimiter(), source), null, source);
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to write file command '" + path + "'", e);
+        }
+    }
+
+    private static String pick(final String key, final String first, final Source value) throws IOException{
+        String delimiter = first;
+        while(key.contains(delimiter) || containsLine(value, delimiter))
+            delimiter = delimiter();
+        return delimiter;
+    }
+
+    // whether any line of the value equals the delimiter
+    private static boolean containsLine(final Source value, final String delimiter) throws IOException{
+        final byte[] target = delimiter.getBytes(StandardCharsets.UTF_8);
+        final byte[] buffer = new byte[streamSize];
+        // bytes of the delimiter matched on the current line, -1 if the line can no longer match
+        int matched = 0;
+        try(final InputStream in = value.open()){
+            int read;
+            while((read = in.read(buffer)) != -1)
+                for(int i = 0; i < read; i++){
+                    final byte b = buffer[i];
+                    if(b == '\n' || b == '\r'){
+                        if(matched == target.length)
+                            return true;
+                        matched = 0;
+                    }else if(matched >= 0 && matched < target.length && b == target[matched])
+                        matched++;
+                    else
+                        matched = -1;
+                }
+        }
+        return matched == target.length;
+    }
+
+    // value is written with one gathering write when it is held in memory, otherwise it is copied from the source
+    private synchronized void appendHeredoc(final String key, final String delimiter, final ByteBuffer value, final Source source) throws IOException{
+        flush();
+        final ByteBuffer header = ByteBuffer.wrap((key + "<<" + delimiter + EOL).getBytes(StandardCharsets.UTF_8));
+        final ByteBuffer footer = ByteBuffer.wrap((EOL + delimiter + EOL).getBytes(StandardCharsets.UTF_8));
+        // keeps other writers that lock the file from interleaving with the entry
+        try(final FileLock ignored = channel.lock()){
+            if(value != null)
+                write(header, value, footer);
+            else{
+                write(header);
+                try(final InputStream in = source.open()){
+                    final byte[] buffer = new byte[streamSize];
+                    int read;
+                    while((read = in.read(buffer)) != -1)
+                        write(ByteBuffer.wrap(buffer, 0, read));
+                }
+                write(footer);
+            }
+        }
+    }
+
+    private void write(final ByteBuffer... buffers) throws IOException{
+        long remaining = 0;
+        for(final ByteBuffer buffer : buffers)
+            remaining += buffer.remaining();
+        while(remaining > 0)
+            remaining -= channel.write(buffers);
+    }
+
+    @FunctionalInterface
+    private interface Source {
+
+        InputStream open() throws IOException;
+
+    }
+
+    // holds a streamed value in memory, moving it to a temporary file once it gets large
+    private static final class Spool extends OutputStream implements Source {
+
+        private Memory memory = new Memory();
+        private Path spill = null;
+        private OutputStream spillStream = null;
+
+        @Override
+        public final void write(final int b) throws IOException{
+            reserve(1).write(b);
+        }
+
+        @Override
+        public final void write(final byte[] b, final int off, final int len) throws IOException{
+            reserve(len).write(b, off, len);
+        }
+
+        private OutputStream reserve(final int len) throws IOException{
+            if(spillStream == null && memory.size() + len > memoryLimit){
+                spill = Files.createTempFile("jcore-file-command-", ".tmp");
+                spillStream = new BufferedOutputStream(Files.newOutputStream(spill), streamSize);
+                memory.writeTo(spillStream);
+                memory = null;
+            }
+            return spillStream != null ? spillStream : memory;
+        }
+
+        // value if it is held in memory, otherwise null
+        final ByteBuffer buffer(){
+            return memory != null ? memory.buffer() : null;
+        }
+
+        @Override
+        public final InputStream open() throws IOException{
+            if(memory != null)
+                return memory.input();
+            spillStream.flush();
+            return Files.newInputStream(spill);
+        }
+
+        @Override
+        public final void close() throws IOException{
+            if(spill != null){
+                spillStream.close();
+                Files.deleteIfExists(spill);
+            }
+        }
+
+    }
+
+    // exposes the written bytes without copying them
+    private static final class Memory extends ByteArrayOutputStream {
+
+        Memory(){
+            super(8192);
+        }
+
+        final ByteBuffer buffer(){
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        final InputStream input(){
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+    }
+
+    /**
+     * Appends text as is.
+     *
+     * @param text text
+     */
+    final synchronized void append(final CharSequence text){
+        pending.append(text);
+        pendingBytes += utf8Length(text);
+        flushIfFull();
+    }
+
+    /**
+     * Returns the size of the file including pending writes. The file size is read every time, so writes from other processes are counted.
+     *
+     * @return size in bytes
+     */
+    final synchronized long size(){
+        try{
+            return channel.size() + pendingBytes;
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to read file command '" + path + "'", e);
+        }
+    }
+
+    /**
+     * Appends a line. The line is written before returning.
+     *
+     * @param line line
+     */
+    final synchronized void appendLine(final CharSequence line){
+        pending.append(line).append(EOL);
+        flush();
+    }
+
+    final synchronized void flush(){
+        if(pending.length() == 0)
+            return;
+        final ByteBuffer buffer = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+        pending.setLength(0);
+        pendingBytes = 0;
+        if(pending.capacity() > batchSize * 4){
+            pending.trimToSize();
+            pending.ensureCapacity(batchSize + 256);
+        }
+        // locked like heredoc entries so batches from this process and heredocs from another never interleave
+        try(final FileLock ignored = channel.lock()){
+            write(buffer);
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to write file command '" + path + "'", e);
+        }
+    }
+
+    private void flushIfFull(){
+        if(pending.length() >= batchSize)
+            flush();
+    }
+
+    /**
+     * Returns how many bytes text takes when encoded as UTF-8, without encoding it.
+     *
+     * @param text text
+     * @return size in bytes
+     */
+    static long utf8Length(final CharSequence text){
+        long length = 0;
+        for(int i = 0, len = text.length(); i < len; i++){
+            final char ch = text.charAt(i);
+            if(ch < 0x80)
+                length++;
+            else if(ch < 0x800)
+                length += 2;
+            else if(Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(text.charAt(i + 1))){
+                length += 4;
+                i++;
+            }else
+                length += 3;
+        }
+        return length;
+    }
+
+    private static int indexOfLineBreak(final CharSequence value){
+        final int len = value.length();
+        for(int i = 0; i < len; i++){
+            final char ch = value.charAt(i);
+            if(ch == '\n' || ch == '\r')
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString(){
+        return "FileCommand{" +
+               "path='" + path + '\'' +
+               '}';
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Captures everything a thread writes while a group is open and replays it through the command sink in one piece when the group closes.
+ */
+final class GroupBuffer extends OutputStream implements CommandSink {
+
+    private static final int memoryLimit = 1024 * 1024;
+
+    // charset the router encodes System.out with
+    private static final String charset = Charset.defaultCharset().name();
+
+    private static final ThreadLocal<GroupBuffer> current = new ThreadLocal<>();
+
+    // replayed groups never interleave with each other
+    private static final Object replay = new Object();
+
+    // System.out is replaced by a router while any thread has an open group
+    private static int open = 0;
+    private static PrintStream original, router;
+
+    static GroupBuffer current(){
+        return current.get();
+    }
+
+    static GroupBuffer open(){
+        final GroupBuffer buffer;
+        synchronized(GroupBuffer.class){
+            if(open++ == 0){
+                original = System.out;
+                try{
+                    router = new PrintStream(new Router(original), true, charset);
+                }catch(final UnsupportedEncodingException e){ // default charset is always supported
+                    throw new IllegalStateException(e);
+                }
+                System.setOut(router);
+            }
+            buffer = new GroupBuffer();
+        }
+        current.set(buffer);
+        return buffer;
+    }
+
+    //
+
+    // bytes printed to System.out are decoded as they arrive, so lines are kept as text and the sink encodes them itself
+    private final CharsetDecoder decoder = Charset.forName(charset).newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer decoded = CharBuffer.allocate(1024);
+    private final ByteBuffer partial = ByteBuffer.allocate(16);
+
+    private StringBuilder memory = new StringBuilder(8192);
+    private Path spill = null;
+    private Writer spillWriter = null;
+
+    private GroupBuffer(){ }
+
+    @Override
+    public final void write(final CharSequence line){
+        try{
+            reserve(line.length() + 1).append(line).append('\n');
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to buffer group output", e);
+        }
+    }
+
+    @Override
+    public final void write(final int b) throws IOException{
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public final void write(final byte[] b, final int off, final int len) throws IOException{
+        final ByteBuffer in;
+        if(partial.position() == 0)
+            in = ByteBuffer.wrap(b, off, len);
+        else{ // finish a character split across writes
+            partial.flip();
+            in = ByteBuffer.allocate(partial.remaining() + len).put(partial).put(b, off, len);
+            in.flip();
+            partial.clear();
+        }
+        while(true){
+            final CoderResult result = decoder.decode(in, decoded, false);
+            decoded.flip();
+            reserve(decoded.remaining()).append(decoded);
+            decoded.clear();
+            if(result.isUnderflow())
+                break;
+        }
+        partial.put(in);
+    }
+
+    @Override
+    public final void flush(){ }
+
+    private Appendable reserve(final int len) throws IOException{
+        if(spillWriter == null && memory.length() + len > memoryLimit){
+            spill = Files.createTempFile("jcore-group-", ".log");
+            spillWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(spill), StandardCharsets.UTF_8), 64 * 1024);
+            spillWriter.append(memory);
+            memory = null;
+        }
+        return spillWriter != null ? spillWriter : memory;
+    }
+
+    /**
+     * Stops capturing and replays the captured lines through the sink. The sink is flushed first so lines it still holds from before the group are written ahead of it.
+     *
+     * @param sink configured command sink
+     */
+    final void close(final CommandSink sink){
+        current.remove();
+        try{
+            sink.flush();
+            synchronized(replay){
+                if(spillWriter == null){
+                    final int len = memory.length();
+                    for(int start = 0; start < len; ){
+                        int end = memory.indexOf("\n", start);
+                        final int next = end == -1 ? (end = len) : end + 1;
+                        if(end > start && memory.charAt(end - 1) == '\r')
+                            end--;
+                        sink.write(memory.substring(start, end));
+                        start = next;
+                    }
+                }else{
+                    spillWriter.close();
+                    try(final BufferedReader reader = Files.newBufferedReader(spill, StandardCharsets.UTF_8)){
+                        String line;
+                        while((line = reader.readLine()) != null)
+                            sink.write(line);
+                    }
+                }
+                sink.flush();
+            }
+        }catch(final IOException e){
+            throw new UncheckedIOException("Failed to write group output", e);
+        }finally{
+            if(spill != null)
+                try{
+                    Files.deleteIfExists(spill);
+                }catch(final IOException ignored){ }
+            synchronized(GroupBuffer.class){
+                if(--open == 0){
+                    if(System.out == router)
+                        System.setOut(original);
+                    original = router = null;
+                }
+            }
+        }
+    }
+
+    private static final class Router extends OutputStream {
+
+        private final PrintStream original;
+
+        Router(final PrintStream original){
+            this.original = original;
+        }
+
+        private OutputStream target(){
+            final GroupBuffer buffer = current.get();
+            return buffer != null ? buffer : original;
+        }
+
+        @Override
+        public final void write(final int b) throws IOException{
+            target().write(b);
+        }
+
+        @Override
+        public final void write(final byte[] b, final int off, final int len) throws IOException{
+            target().write(b, off, len);
+        }
+
+        @Override
+        public final void flush() throws IOException{
+            target().flush();
+        }
+
+    }
+
+}
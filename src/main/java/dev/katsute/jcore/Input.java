@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a field to be set from a workflow input by {@link Workflow#bindInputs(Class)}.
+ * <br>
+ * Supported field types are {@link String}, {@code String[]} (lines of the input), {@code boolean}, {@code int}, {@code long}, {@code double}, their wrappers, {@link java.time.Duration}, and enums. Fields of inputs that are not supplied or empty keep their initial value.
+ *
+ * @see Workflow#bindInputs(Class)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Input {
+
+    /**
+     * Name of the input, the field name is used if empty.
+     *
+     * @return input name
+     *
+     * @since 2.1.0
+     */
+    String name() default "";
+
+    /**
+     * If true, a {@link NullPointerException} will be thrown if the input is not supplied or empty.
+     *
+     * @return if input is required
+     *
+     * @since 2.1.0
+     */
+    boolean required() default false;
+
+    /**
+     * Whether to trim the value or not, only applies to {@link String}, {@code String[]}, and {@code boolean} fields. Numbers, durations, and enums are always parsed from the trimmed value.
+     *
+     * @return if value is trimmed
+     *
+     * @since 2.1.0
+     */
+    boolean trim() default true;
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Creates objects with their {@link Input} fields set from the workflow inputs. Constructors, setters, and converters are resolved once per class.
+ */
+final class InputBinder {
+
+    private static final MethodType constructorType = MethodType.methodType(Object.class);
+    private static final MethodType setterType      = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<InputBinder> binders = new ClassValue<InputBinder>(){
+        @Override
+        protected final InputBinder computeValue(final Class<?> type){
+            return new InputBinder(type);
+        }
+    };
+
+    static InputBinder get(final Class<?> type){
+        return binders.get(type);
+    }
+
+    private final MethodHandle constructor;
+    private final Binding[] bindings;
+
+    private InputBinder(final Class<?> type){
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try{
+            final Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(constructor).asType(constructorType);
+        }catch(final NoSuchMethodException e){
+            throw new IllegalArgumentException("Class " + type.getName() + " must have a constructor without parameters", e);
+        }catch(final IllegalAccessException | RuntimeException e){
+            throw new IllegalArgumentException("Constructor of " + type.getName() + " is not accessible", e);
+        }
+
+        final List<Binding> bindings = new ArrayList<>();
+        for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass())
+            for(final Field field : c.getDeclaredFields()){
+                final Input input = field.getAnnotation(Input.class);
+                if(input == null)
+                    continue;
+                final String where = c.getName() + '#' + field.getName();
+                if(Modifier.isStatic(field.getModifiers()))
+                    throw new IllegalArgumentException("Input field " + where + " must not be static");
+                if(Modifier.isFinal(field.getModifiers()))
+                    throw new IllegalArgumentException("Input field " + where + " must not be final");
+                final MethodHandle setter;
+                try{
+                    field.setAccessible(true);
+                    setter = lookup.unreflectSetter(field).asType(setterType);
+                }catch(final IllegalAccessException | RuntimeException e){
+                    throw new IllegalArgumentException("Input field " + where + " is not accessible", e);
+                }
+                final String name = input.name().isEmpty() ? field.getName() : input.name();
+                bindings.add(new Binding(name, setter, converter(field.getType(), name, input.required(), input.trim(), where)));
+            }
+        this.bindings = bindings.toArray(new Binding[0]);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<String,Object> converter(final Class<?> type, final String name, final boolean required, final boolean trim, final String where){
+        if(type == String.class)
+            return n -> {
+                final InputRegistry.Entry input = supplied(n, required, trim);
+                return input != null ? input.value(trim) : null;
+            };
+        else if(type == String[].class)
+            return n -> {
+                final InputRegistry.Entry input = supplied(n, required, trim);
+                return input != null ? input.lines(trim) : null;
+            };
+        else if(type == boolean.class || type == Boolean.class)
+            return n -> {
+                final InputRegistry.Entry input = supplied(n, required, trim);
+                if(input == null)
+                    return null;
+                final Boolean value = input.bool(trim);
+                if(value == null)
+                    throw new IllegalArgumentException("Input '" + n + "' is not a boolean type");
+                return value;
+            };
+        else if(type == int.class || type == Integer.class)
+            return n -> Workflow.typedInput(n, InputConverter.INT, InputConverter.INT, "int", null, required);
+        else if(type == long.class || type == Long.class)
+            return n -> Workflow.typedInput(n, InputConverter.LONG, InputConverter.LONG, "long", null, required);
+        else if(type == double.class || type == Double.class)
+            return n -> Workflow.typedInput(n, InputConverter.DOUBLE, InputConverter.DOUBLE, "double", null, required);
+        else if(type == Duration.class)
+            return n -> Workflow.typedInput(n, InputConverter.DURATION, InputConverter.DURATION, "duration", null, required);
+        else if(type.isEnum()){
+            final Function<String,?> parser = InputConverter.enumeration((Class<Enum>) type);
+            return n -> Workflow.typedInput(n, type, (Function<String,Object>) parser, type.getSimpleName(), null, required);
+        }else
+            throw new IllegalArgumentException("Input field " + where + " has unsupported type " + type.getName());
+    }
+
+    // the runner passes an empty value for optional inputs that were not supplied, so empty is treated as missing like typed inputs
+    private static InputRegistry.Entry supplied(final String name, final boolean required, final boolean trim){
+        final InputRegistry.Entry input = InputRegistry.get().find(name);
+        if(input == null || input.value(trim).isEmpty())
+            if(required)
+                throw new NullPointerException("Input '" + name + "' is required and not supplied");
+            else
+                return null;
+        return input;
+    }
+
+    final Object bind(){
+        try{
+            final Object instance = (Object) constructor.invokeExact();
+            for(final Binding binding : bindings){
+                final Object value = binding.converter.apply(binding.name);
+                if(value != null) // not supplied, keep the initial value
+                    binding.setter.invokeExact(instance, value);
+            }
+            return instance;
+        }catch(final RuntimeException | Error e){
+            throw e;
+        }catch(final Throwable e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Binding {
+
+        private final String name;
+        private final MethodHandle setter;
+        private final Function<String,Object> converter;
+
+        private Binding(final String name, final MethodHandle setter, final Function<String,Object> converter){
+            this.name      = name;
+            this.setter    = setter;
+            this.converter = converter;
+        }
+
+    }
+
+}
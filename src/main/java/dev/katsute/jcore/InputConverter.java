@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Parsers for typed workflow inputs. Each parser throws an {@link IllegalArgumentException}, with an optional hint as the message, when the value can't be parsed.
+ */
+abstract class InputConverter {
+
+    private InputConverter(){ }
+
+    static final Function<String,Integer> INT = value -> {
+        try{
+            return Integer.parseInt(value);
+        }catch(final NumberFormatException e){
+            throw new IllegalArgumentException();
+        }
+    };
+
+    static final Function<String,Long> LONG = value -> {
+        try{
+            return Long.parseLong(value);
+        }catch(final NumberFormatException e){
+            throw new IllegalArgumentException();
+        }
+    };
+
+    static final Function<String,Double> DOUBLE = value -> {
+        try{
+            return Double.parseDouble(value);
+        }catch(final NumberFormatException e){
+            throw new IllegalArgumentException();
+        }
+    };
+
+    static final Function<String,Duration> DURATION = InputConverter::parseDuration;
+
+    static final Function<String,Long> SIZE = InputConverter::parseSize;
+
+    static final Function<String,String[]> LIST = InputConverter::parseList;
+
+    // ----- duration ---------------
+
+    /**
+     * Parses a duration like {@code 30s}, {@code 1h30m}, {@code 250ms}, or ISO-8601 {@code PT1H30M}.
+     *
+     * @param value value
+     * @return duration
+     */
+    static Duration parseDuration(final String value){
+        if(value.length() > 1 && (value.charAt(0) == 'P' || value.charAt(0) == 'p' || value.charAt(0) == '-'))
+            try{
+                return Duration.parse(value);
+            }catch(final DateTimeParseException ignored){ } // fall through to the short form
+
+        final String hint = "expected a duration like 30s, 1h30m, 250ms or PT1H30M";
+        Duration duration = Duration.ZERO;
+        final int len = value.length();
+        int i = 0;
+        boolean any = false;
+        while(i < len){
+            if(value.charAt(i) == ' '){
+                i++;
+                continue;
+            }
+            final int start = i;
+            while(i < len && value.charAt(i) >= '0' && value.charAt(i) <= '9')
+                i++;
+            if(start == i)
+                throw new IllegalArgumentException(hint);
+            final long amount;
+            try{
+                amount = Long.parseLong(value.substring(start, i));
+            }catch(final NumberFormatException e){
+                throw new IllegalArgumentException(hint);
+            }
+            while(i < len && value.charAt(i) == ' ')
+                i++;
+            final int unit = i;
+            while(i < len && Character.isLetter(value.charAt(i)))
+                i++;
+            try{
+                duration = duration.plus(unit(value.substring(unit, i), amount, hint));
+            }catch(final ArithmeticException e){
+                throw new IllegalArgumentException("duration is too long");
+            }
+            any = true;
+        }
+        if(!any)
+            throw new IllegalArgumentException(hint);
+        return duration;
+    }
+
+    private static Duration unit(final String unit, final long amount, final String hint){
+        switch(unit.toLowerCase(Locale.ROOT)){
+            case "ns":
+                return Duration.ofNanos(amount);
+            case "us":
+            case "\u00b5s":
+                return Duration.ofNanos(Math.multiplyExact(amount, 1000L));
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                throw new IllegalArgumentException(unit.isEmpty() ? "missing unit, " + hint : "unknown unit '" + unit + "', " + hint);
+        }
+    }
+
+    // ----- size ---------------
+
+    /**
+     * Parses a size in bytes. KB, MB, GB, and TB are decimal; KiB, MiB, GiB, TiB, and the bare K, M, G, and T are binary. A value without a unit is in bytes.
+     *
+     * @param value value
+     * @return size in bytes
+     */
+    static long parseSize(final String value){
+        final String hint = "expected a size like 512MiB, 10MB or 64K";
+        int i = 0;
+        final int len = value.length();
+        while(i < len && (Character.isDigit(value.charAt(i)) || value.charAt(i) == '.'))
+            i++;
+        if(i == 0)
+            throw new IllegalArgumentException(hint);
+        final BigDecimal amount;
+        try{
+            amount = new BigDecimal(value.substring(0, i));
+        }catch(final NumberFormatException e){
+            throw new IllegalArgumentException(hint);
+        }
+        final String unit = value.substring(i).trim();
+        final long multiplier;
+        switch(unit.toUpperCase(Locale.ROOT)){
+            case "":
+            case "B":
+                multiplier = 1L; break;
+            case "K":
+            case "KIB":
+                multiplier = 1L << 10; break;
+            case "M":
+            case "MIB":
+                multiplier = 1L << 20; break;
+            case "G":
+            case "GIB":
+                multiplier = 1L << 30; break;
+            case "T":
+            case "TIB":
+                multiplier = 1L << 40; break;
+            case "KB":
+                multiplier = 1_000L; break;
+            case "MB":
+                multiplier = 1_000_000L; break;
+            case "GB":
+                multiplier = 1_000_000_000L; break;
+            case "TB":
+                multiplier = 1_000_000_000_000L; break;
+            default:
+                throw new IllegalArgumentException("unknown unit '" + unit + "', " + hint);
+        }
+        try{
+            return amount.multiply(BigDecimal.valueOf(multiplier)).setScale(0, RoundingMode.DOWN).longValueExact();
+        }catch(final ArithmeticException e){
+            throw new IllegalArgumentException("size is too large");
+        }
+    }
+
+    // ----- enum ---------------
+
+    /**
+     * Returns a parser that matches enum constants ignoring case, with {@code -} and spaces matching {@code _}.
+     *
+     * @param type enum class
+     * @param <E> enum type
+     * @return parser
+     */
+    static <E extends Enum<E>> Function<String,E> enumeration(final Class<E> type){
+        return value -> {
+            for(final E constant : type.getEnumConstants())
+                if(matches(constant.name(), value))
+                    return constant;
+            throw new IllegalArgumentException("expected one of " + Arrays.toString(type.getEnumConstants()));
+        };
+    }
+
+    private static boolean matches(final String constant, final String value){
+        final int len = constant.length();
+        if(len != value.length())
+            return false;
+        for(int i = 0; i < len; i++){
+            final char a = constant.charAt(i);
+            final char b = value.charAt(i);
+            if(a == b || Character.toUpperCase(a) == Character.toUpperCase(b))
+                continue;
+            if((a == '_' || a == '-' || a == ' ') && (b == '_' || b == '-' || b == ' '))
+                continue;
+            return false;
+        }
+        return true;
+    }
+
+    // ----- list ---------------
+
+    /**
+     * Splits a value on commas and new lines, dropping empty items.
+     *
+     * @param value value
+     * @return items
+     */
+    static String[] parseList(final String value){
+        final List<String> items = new ArrayList<>();
+        int start = 0;
+        for(int i = 0, len = value.length(); i <= len; i++)
+            if(i == len || value.charAt(i) == ',' || value.charAt(i) == '\n'){
+                final String item = value.substring(start, i).trim();
+                if(!item.isEmpty())
+                    items.add(item);
+                start = i + 1;
+            }
+        return items.toArray(new String[0]);
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Snapshot of the workflow inputs, taken from the {@code INPUT_} environment variables on first use. Names are matched the way the runner builds the variable name (spaces as underscores, upper case) without creating any strings for the lookup.
+ */
+final class InputRegistry {
+
+    private static final String prefix = "INPUT_";
+
+    private final Entry[] table;
+    private final int mask;
+    private final int size;
+
+    private static final class Holder {
+
+        private static final InputRegistry registry = new InputRegistry(System.getenv());
+
+    }
+
+    static InputRegistry get(){
+        return Holder.registry;
+    }
+
+    InputRegistry(final Map<String,String> environment){
+        final List<Entry> entries = new ArrayList<>();
+        for(final Map.Entry<String,String> variable : environment.entrySet())
+            if(variable.getKey().startsWith(prefix))
+                entries.add(new Entry(variable.getKey().substring(prefix.length()), variable.getValue()));
+
+        int capacity = 2;
+        while(capacity < entries.size() * 2)
+            capacity <<= 1;
+        table = new Entry[capacity];
+        mask  = capacity - 1;
+
+        int size = 0;
+        for(final Entry entry : entries){
+            int i = hash(entry.name) & mask;
+            while(table[i] != null && !equals(table[i].name, entry.name))
+                i = (i + 1) & mask;
+            if(table[i] == null)
+                size++;
+            // same name in different case, the variable the runner would have set wins
+            if(table[i] == null || !isNormalized(table[i].name))
+                table[i] = entry;
+        }
+        this.size = size;
+    }
+
+    final int size(){
+        return size;
+    }
+
+    /**
+     * Returns the input with a name, or null if it was not supplied.
+     *
+     * @param name input name
+     * @return input or null
+     */
+    final Entry find(final String name){
+        if(name == null)
+            return null;
+        int i = hash(name) & mask;
+        Entry entry;
+        while((entry = table[i]) != null){
+            if(equals(entry.name, name))
+                return entry;
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    // ----- name ---------------
+
+    // Character#toUpperCase isn't affected by the default locale
+    private static char normalize(final char ch){
+        return ch == ' ' ? '_' : Character.toUpperCase(ch);
+    }
+
+    private static int hash(final String name){
+        int h = 0;
+        for(int i = 0, len = name.length(); i < len; i++)
+            h = 31 * h + normalize(name.charAt(i));
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(final String a, final String b){
+        final int len = a.length();
+        if(len != b.length())
+            return false;
+        for(int i = 0; i < len; i++)
+            if(normalize(a.charAt(i)) != normalize(b.charAt(i)))
+                return false;
+        return true;
+    }
+
+    private static boolean isNormalized(final String name){
+        for(int i = 0, len = name.length(); i < len; i++)
+            if(normalize(name.charAt(i)) != name.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * A single input. Parsed forms of the value are computed once and reused.
+     */
+    static final class Entry {
+
+        private static final byte UNKNOWN = 0, TRUE = 1, FALSE = 2, INVALID = 3;
+
+        final String name, value, trimmed;
+
+        private volatile String[] lines, trimmedLines;
+        private volatile byte bool = UNKNOWN, trimmedBool = UNKNOWN;
+
+        private Entry(final String name, final String value){
+            this.name    = name;
+            this.value   = value;
+            this.trimmed = value.trim();
+        }
+
+        final String value(final boolean trim){
+            return trim ? trimmed : value;
+        }
+
+        /**
+         * Returns the non-empty lines of the value.
+         *
+         * @param trim whether to trim the value first
+         * @return a copy of the lines
+         */
+        final String[] lines(final boolean trim){
+            String[] lines = trim ? trimmedLines : this.lines;
+            if(lines == null){
+                lines = split(value(trim));
+                if(trim)
+                    trimmedLines = lines;
+                else
+                    this.lines = lines;
+            }
+            return lines.clone();
+        }
+
+        private static String[] split(final String value){
+            final List<String> lines = new ArrayList<>();
+            int start = 0;
+            for(int i = 0, len = value.length(); i <= len; i++)
+                if(i == len || value.charAt(i) == '\n'){
+                    if(i > start)
+                        lines.add(value.substring(start, i));
+                    start = i + 1;
+                }
+            return lines.toArray(new String[0]);
+        }
+
+        /**
+         * Returns the value as a boolean.
+         *
+         * @param trim whether to trim the value first
+         * @return boolean value, or null if the value is not a boolean
+         */
+        final Boolean bool(final boolean trim){
+            byte bool = trim ? trimmedBool : this.bool;
+            if(bool == UNKNOWN){
+                final String value = value(trim);
+                bool = value.equalsIgnoreCase("true") ? TRUE : value.equalsIgnoreCase("false") ? FALSE : INVALID;
+                if(trim)
+                    trimmedBool = bool;
+                else
+                    this.bool = bool;
+            }
+            return bool == TRUE ? Boolean.TRUE : bool == FALSE ? Boolean.FALSE : null;
+        }
+
+        private volatile Map<Object,Object> parsed;
+
+        /**
+         * Returns the trimmed value converted by a parser. The result is kept per key so the value is only parsed once.
+         *
+         * @param key cache key for the parser
+         * @param parser parser
+         * @param <T> type
+         * @return parsed value
+         * @throws IllegalArgumentException if the value could not be parsed
+         */
+        @SuppressWarnings("unchecked")
+        final <T> T parse(final Object key, final Function<String,T> parser){
+            Map<Object,Object> parsed = this.parsed;
+            if(parsed == null)
+                synchronized(this){
+                    if((parsed = this.parsed) == null)
+                        this.parsed = parsed = new ConcurrentHashMap<>(4);
+                }
+            final Object value = parsed.get(key);
+            if(value != null)
+                return (T) value;
+            final T result = parser.apply(trimmed);
+            parsed.putIfAbsent(key, result);
+            return result;
+        }
+
+        @Override
+        public String toString(){
+            return "Entry{" +
+                   "name='" + name + '\'' +
+                   ", value='" + value + '\'' +
+                   '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads values out of a JSON document by JSON pointer without parsing the whole document. Values that aren't on the path are skipped over byte by byte; only the requested value is decoded, and results are kept for later lookups.
+ */
+final class JsonPointerReader {
+
+    private static final Object NULL = new Object();
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final Map<String,Object> values = new ConcurrentHashMap<>();
+
+    JsonPointerReader(final ByteBuffer buffer){
+        this.buffer = buffer;
+        this.limit  = buffer.limit();
+    }
+
+    static JsonPointerReader open(final Path path){
+        try(final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            return new JsonPointerReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }catch(final IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the value at a JSON pointer. Strings are unescaped, numbers and booleans are returned as written, and objects and arrays are returned as JSON.
+     *
+     * @param pointer JSON pointer, like {@code /head_commit/message}
+     * @return value, or null if the value is missing or null
+     * @throws IllegalArgumentException if the pointer is malformed
+     * @throws IllegalStateException if the document is malformed
+     */
+    final String get(final String pointer){
+        final Object value = values.get(pointer);
+        if(value != null)
+            return value == NULL ? null : (String) value;
+        final String result = find(pointer);
+        values.putIfAbsent(pointer, result != null ? result : NULL);
+        return result;
+    }
+
+    private String find(final String pointer){
+        if(!pointer.isEmpty() && pointer.charAt(0) != '/')
+            throw new IllegalArgumentException("JSON pointer must be empty or start with '/'");
+
+        int pos = skipWhitespace(0);
+        int start = 1;
+        while(start <= pointer.length() && !pointer.isEmpty()){
+            int end = pointer.indexOf('/', start);
+            if(end == -1)
+                end = pointer.length();
+            final String token = pointer.substring(start, end).replace("~1", "/").replace("~0", "~");
+            start = end + 1;
+
+            pos = member(pos, token);
+            if(pos == -1)
+                return null;
+        }
+        return value(pos);
+    }
+
+    // returns the start of the child value or -1 if it doesn't exist
+    private int member(final int pos, final String token){
+        final byte open = byteAt(pos);
+        if(open == '{'){
+            final byte[] key = token.getBytes(StandardCharsets.UTF_8);
+            int i = skipWhitespace(pos + 1);
+            if(byteAt(i) == '}')
+                return -1;
+            while(true){
+                if(byteAt(i) != '"')
+                    throw malformed(i);
+                final int keyEnd = skipString(i);
+                final boolean match = keyEquals(i, keyEnd, key);
+                i = skipWhitespace(keyEnd);
+                if(byteAt(i) != ':')
+                    throw malformed(i);
+                i = skipWhitespace(i + 1);
+                if(match)
+                    return i;
+                i = skipWhitespace(skipValue(i));
+                if(byteAt(i) == '}')
+                    return -1;
+                else if(byteAt(i) != ',')
+                    throw malformed(i);
+                i = skipWhitespace(i + 1);
+            }
+        }else if(open == '['){
+            final int index;
+            try{
+                index = Integer.parseInt(token);
+            }catch(final NumberFormatException e){
+                return -1;
+            }
+            if(index < 0)
+                return -1;
+            int i = skipWhitespace(pos + 1);
+            if(byteAt(i) == ']')
+                return -1;
+            for(int n = 0; ; n++){
+                if(n == index)
+                    return i;
+                i = skipWhitespace(skipValue(i));
+                if(byteAt(i) == ']')
+                    return -1;
+                else if(byteAt(i) != ',')
+                    throw malformed(i);
+                i = skipWhitespace(i + 1);
+            }
+        }else
+            return -1;
+    }
+
+    private String value(final int pos){
+        final byte b = byteAt(pos);
+        if(b == '"')
+            return decodeString(pos);
+        final int end = skipValue(pos);
+        if(b == 'n')
+            return null;
+        final byte[] bytes = new byte[end - pos];
+        for(int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(pos + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ----- scanning ---------------
+
+    private byte byteAt(final int pos){
+        if(pos >= limit)
+            throw malformed(pos);
+        return buffer.get(pos);
+    }
+
+    private int skipWhitespace(int pos){
+        while(pos < limit){
+            final byte b = buffer.get(pos);
+            if(b != ' ' && b != '\n' && b != '\r' && b != '\t')
+                break;
+            pos++;
+        }
+        return pos;
+    }
+
+    // returns the position after the closing quote
+    private int skipString(final int pos){
+        int i = pos + 1;
+        while(true){
+            final byte b = byteAt(i);
+            if(b == '\\')
+                i += 2;
+            else if(b == '"')
+                return i + 1;
+            else
+                i++;
+        }
+    }
+
+    // returns the position after the value
+    private int skipValue(final int pos){
+        final byte b = byteAt(pos);
+        if(b == '"')
+            return skipString(pos);
+        else if(b == '{' || b == '['){
+            int depth = 0;
+            int i = pos;
+            while(true){
+                final byte c = byteAt(i);
+                if(c == '"'){
+                    i = skipString(i);
+                    continue;
+                }else if(c == '{' || c == '[')
+                    depth++;
+                else if(c == '}' || c == ']')
+                    if(--depth == 0)
+                        return i + 1;
+                i++;
+            }
+        }else{
+            int i = pos;
+            while(i < limit){
+                final byte c = buffer.get(i);
+                if(c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t')
+                    break;
+                i++;
+            }
+            if(i == pos)
+                throw malformed(pos);
+            return i;
+        }
+    }
+
+    private boolean keyEquals(final int start, final int end, final byte[] key){
+        final int len = end - start - 2;
+        for(int i = 0; i < len; i++)
+            if(buffer.get(start + 1 + i) == '\\') // escaped key, compare decoded
+                return decodeString(start).equals(new String(key, StandardCharsets.UTF_8));
+        if(len != key.length)
+            return false;
+        for(int i = 0; i < len; i++)
+            if(buffer.get(start + 1 + i) != key[i])
+                return false;
+        return true;
+    }
+
+    private String decodeString(final int pos){
+        final int end = skipString(pos) - 1;
+        final byte[] bytes = new byte[end - pos - 1];
+        int len = 0;
+        boolean escaped = false;
+        for(int i = pos + 1; i < end; i++){
+            final byte b = buffer.get(i);
+            if(b == '\\'){
+                escaped = true;
+                break;
+            }
+            bytes[len++] = b;
+        }
+        if(!escaped)
+            return new String(bytes, 0, len, StandardCharsets.UTF_8);
+
+        // unescape, raw UTF-8 runs are decoded together so multi-byte characters stay intact
+        final StringBuilder out = new StringBuilder(end - pos);
+        int run = pos + 1;
+        int i = pos + 1;
+        while(i < end){
+            if(buffer.get(i) != '\\'){
+                i++;
+                continue;
+            }
+            out.append(utf8(run, i));
+            final byte e = buffer.get(i + 1);
+            switch(e){
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if(i + 6 > end)
+                        throw malformed(i);
+                    try{
+                        out.append((char) Integer.parseInt(utf8(i + 2, i + 6), 16));
+                    }catch(final NumberFormatException ex){
+                        throw malformed(i);
+                    }
+                    i += 4;
+                    break;
+                default: // " \ /
+                    out.append((char) e);
+            }
+            i += 2;
+            run = i;
+        }
+        out.append(utf8(run, end));
+        return out.toString();
+    }
+
+    private String utf8(final int start, final int end){
+        final byte[] bytes = new byte[end - start];
+        for(int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static IllegalStateException malformed(final int pos){
+        return new IllegalStateException("Malformed JSON at byte " + pos);
+    }
+
+}
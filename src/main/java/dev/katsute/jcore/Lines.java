@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.*;
+
+/**
+ * The trimmed, non-empty lines of a string, found lazily as the iterator advances. Lines are views over the original string and are only copied by {@link CharSequence#toString()}.
+ */
+final class Lines implements Iterable<CharSequence> {
+
+    private final String value;
+
+    Lines(final String value){
+        this.value = value;
+    }
+
+    @Override
+    public final Iterator<CharSequence> iterator(){
+        return new Iterator<CharSequence>(){
+
+            private int position = 0;
+            private View next = null;
+
+            @Override
+            public final boolean hasNext(){
+                if(next != null)
+                    return true;
+                final String value = Lines.this.value;
+                final int len = value.length();
+                while(position < len){
+                    int end = value.indexOf('\n', position);
+                    if(end == -1)
+                        end = len;
+                    int start = position;
+                    position = end + 1;
+                    // trims \r of \r\n with the other whitespace
+                    while(start < end && value.charAt(start) <= ' ')
+                        start++;
+                    while(end > start && value.charAt(end - 1) <= ' ')
+                        end--;
+                    if(start < end){
+                        next = new View(value, start, end);
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public final CharSequence next(){
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                final View next = this.next;
+                this.next = null;
+                return next;
+            }
+
+        };
+    }
+
+    @Override
+    public String toString(){
+        return "Lines{" +
+               "value='" + value + '\'' +
+               '}';
+    }
+
+    private static final class View implements CharSequence {
+
+        private final String value;
+        private final int start, end;
+
+        private View(final String value, final int start, final int end){
+            this.value = value;
+            this.start = start;
+            this.end   = end;
+        }
+
+        @Override
+        public final int length(){
+            return end - start;
+        }
+
+        @Override
+        public final char charAt(final int index){
+            if(index < 0 || index >= end - start)
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (end - start));
+            return value.charAt(start + index);
+        }
+
+        @Override
+        public final CharSequence subSequence(final int start, final int end){
+            if(start < 0 || end > this.end - this.start || start > end)
+                throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + (this.end - this.start));
+            return new View(value, this.start + start, this.start + end);
+        }
+
+        @Override
+        public final String toString(){
+            return value.substring(start, end);
+        }
+
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands log records from the logging bridges to a background worker that turns them into workflow commands, so logging threads never wait on the output.
+ */
+final class LogBridge {
+
+    private static final int capacity  = 8192;
+    private static final int batchSize = 256;
+
+    private static final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(capacity);
+
+    private static final AtomicLong submitted = new AtomicLong();
+    private static final AtomicLong completed = new AtomicLong();
+    private static final AtomicLong dropped   = new AtomicLong();
+
+    // signalled whenever a batch is written
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static final Condition progress = lock.newCondition();
+
+    private static final Thread worker = new Thread(LogBridge::drain, "jcore-log-bridge");
+    private static volatile boolean stopped = false;
+
+    static{
+        worker.setDaemon(true);
+        worker.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(LogBridge::stop, "jcore-log-bridge-shutdown"));
+    }
+
+    private LogBridge(){ }
+
+    /**
+     * Queues a log record. If the queue is full the record is dropped; once the JVM is shutting down the record is written directly.
+     *
+     * @param level level
+     * @param message formatted message
+     * @param source where the record was logged from, or null
+     * @param thrown attached throwable, or null
+     */
+    static void submit(final LogLevel level, final String message, final StackTraceElement source, final Throwable thrown){
+        if(!Workflow.isEnabled(level))
+            return;
+        final Record record = new Record(level, message, source, thrown);
+        if(stopped)
+            record.log();
+        else if(queue.offer(record)){
+            submitted.incrementAndGet();
+            // stop may have finished its last drain between the check and the offer
+            if(stopped)
+                drainRemaining();
+        }else
+            dropped.incrementAndGet();
+    }
+
+    /**
+     * Waits until every record queued before this call is written.
+     */
+    static void flush(){
+        final long mark = submitted.get();
+        lock.lock();
+        try{
+            while(completed.get() < mark && !stopped)
+                progress.await();
+        }catch(final InterruptedException e){
+            Thread.currentThread().interrupt();
+            return;
+        }finally{
+            lock.unlock();
+        }
+        Workflow.getCommandSink().flush();
+    }
+
+    private static void drain(){
+        final List<Record> batch = new ArrayList<>(batchSize);
+        try{
+            while(!stopped)
+                try{
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                }catch(final InterruptedException ignored){ }
+        }finally{
+            // records are written directly from now on, release anyone waiting on the worker
+            stopped = true;
+            signalProgress(0);
+        }
+    }
+
+    private static void write(final List<Record> batch){
+        try{
+            for(final Record record : batch)
+                try{
+                    record.log();
+                }catch(final RuntimeException ignored){ } // a bad record must not stop the worker
+        }finally{
+            signalProgress(batch.size());
+            batch.clear();
+        }
+    }
+
+    private static void signalProgress(final int completed){
+        lock.lock();
+        try{
+            LogBridge.completed.addAndGet(completed);
+            progress.signalAll();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private static void stop(){
+        stopped = true;
+        worker.interrupt();
+        try{
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }catch(final InterruptedException ignored){ }
+        drainRemaining();
+        if(dropped.get() > 0)
+            Workflow.warning("Dropped " + dropped.get() + " log records because the log queue was full", null);
+        Workflow.getCommandSink().flush();
+    }
+
+    // serialized so a record queued during shutdown is written by whichever drain runs last
+    private static synchronized void drainRemaining(){
+        final List<Record> batch = new ArrayList<>(batchSize);
+        while(queue.drainTo(batch, batchSize) > 0)
+            write(batch);
+    }
+
+    private static final class Record {
+
+        private final LogLevel level;
+        private final String message;
+        private final StackTraceElement source;
+        private final Throwable thrown;
+
+        Record(final LogLevel level, final String message, final StackTraceElement source, final Throwable thrown){
+            this.level   = level;
+            this.message = message;
+            this.source  = source;
+            this.thrown  = thrown;
+        }
+
+        final void log(){
+            Workflow.log(level, message, source, thrown);
+        }
+
+    }
+
+}
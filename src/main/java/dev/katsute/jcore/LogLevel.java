@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+/**
+ * Workflow message levels, from least to most severe.
+ *
+ * @see Workflow#setLogLevel(LogLevel)
+ * @see Workflow#isEnabled(LogLevel)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public enum LogLevel {
+
+    /**
+     * Debug messages, only shown when the runner is in debug mode.
+     */
+    DEBUG,
+
+    /**
+     * Notice annotations.
+     */
+    NOTICE,
+
+    /**
+     * Warning annotations.
+     */
+    WARNING,
+
+    /**
+     * Error annotations.
+     */
+    ERROR
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+/**
+ * A workflow command with its command name and properties already encoded. Issuing a prepared command only encodes the message.
+ *
+ * @see Workflow#prepare(String, AnnotationProperties)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public final class PreparedCommand {
+
+    final String command, prefix, file;
+    final Integer line;
+    final boolean annotation, flush;
+
+    PreparedCommand(final String command, final AnnotationProperties properties, final String prefix){
+        this.command    = command;
+        this.prefix     = prefix;
+        this.file       = properties != null ? properties.file : null;
+        this.line       = properties != null ? properties.startLine : null;
+        this.annotation = "notice".equals(command) || "warning".equals(command) || "error".equals(command);
+        this.flush      = "endgroup".equals(command); // same as Workflow#endGroup
+    }
+
+    /**
+     * Issues the command with a message.
+     *
+     * @param message message
+     *
+     * @since 2.1.0
+     */
+    public final void issue(final Object message){
+        Workflow.issueCommand(this, message);
+    }
+
+    /**
+     * Issues the command without a message.
+     *
+     * @since 2.1.0
+     */
+    public final void issue(){
+        Workflow.issueCommand(this, null);
+    }
+
+    @Override
+    public String toString(){
+        return "PreparedCommand{" +
+               "prefix='" + prefix + '\'' +
+               '}';
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Maps class names to source files in the workspace. The index is built once with a parallel walk of the workspace and saved to a cache file so later JVMs can load it instead of walking again. The cache records the modification time of every directory walked and the modification time and size of every source file, and is rebuilt if any of them changed.
+ */
+final class SourceIndex {
+
+    private static final String header = "jcore-source-index 2";
+
+    // skipped anywhere
+    private static final Set<String> skip = Collections.singleton("node_modules");
+    // only skipped beside a build file, where they hold build output and not a package
+    private static final Set<String> skipOutput = new HashSet<>(Arrays.asList("out", "bin"));
+    private static final Set<String> buildFiles = new HashSet<>(Arrays.asList("pom.xml", "build.gradle", "build.gradle.kts", "settings.gradle", "settings.gradle.kts", "build.xml", "build.sbt"));
+
+    private SourceIndex(){ }
+
+    /**
+     * Returns the workspace relative source file of a class, or null if the class is not in the index.
+     *
+     * @param className class name, may be an inner class
+     * @return source path or null
+     */
+    static String find(final String className){
+        final int inner = className.indexOf('$');
+        return Holder.index.get(inner == -1 ? className : className.substring(0, inner));
+    }
+
+    private static final class Holder {
+
+        private static final Map<String,String> index = load();
+
+    }
+
+    private static Map<String,String> load(){
+        final String workspace = System.getenv("GITHUB_WORKSPACE");
+        if(workspace == null || workspace.isEmpty())
+            return Collections.emptyMap();
+        try{
+            final Path root = Paths.get(workspace).toAbsolutePath().normalize();
+            if(!Files.isDirectory(root))
+                return Collections.emptyMap();
+
+            final Path cache = cacheFile(root);
+            if(cache != null && Files.isRegularFile(cache))
+                try{
+                    final Map<String,String> index = read(cache, root);
+                    if(index != null)
+                        return index;
+                }catch(final IOException | RuntimeException ignored){ } // rebuild
+
+            final Map<String,String> stamps = new ConcurrentHashMap<>();
+            final Map<String,String> index = build(root, stamps);
+            if(cache != null)
+                try{
+                    write(cache, root, index, stamps);
+                }catch(final IOException | RuntimeException ignored){ } // only affects later JVMs
+            return index;
+        }catch(final RuntimeException ignored){ // fall back to guessing the path
+            return Collections.emptyMap();
+        }
+    }
+
+    // one cache per checkout and job, later forks of the same job share it
+    private static Path cacheFile(final Path root){
+        final String temp = System.getenv("RUNNER_TEMP") != null ? System.getenv("RUNNER_TEMP") : System.getProperty("java.io.tmpdir");
+        if(temp == null)
+            return null;
+        final String key = root + "\n" + System.getenv("GITHUB_SHA") + "\n" + System.getenv("GITHUB_RUN_ID") + "\n" + System.getenv("GITHUB_RUN_ATTEMPT") + "\n" + System.getenv("GITHUB_JOB");
+        try{
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for(final byte b : digest)
+                hex.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return Paths.get(temp, "jcore-source-index-" + hex + ".tsv");
+        }catch(final NoSuchAlgorithmException e){ // required by every Java platform
+            return null;
+        }
+    }
+
+    // returns null if anything in the workspace changed since the cache was written
+    static Map<String,String> read(final Path cache, final Path root) throws IOException{
+        try(final BufferedReader reader = Files.newBufferedReader(cache, StandardCharsets.UTF_8)){
+            if(!(header + '\t' + root).equals(reader.readLine()))
+                return null;
+            final Map<String,String> index = new HashMap<>();
+            String line;
+            while((line = reader.readLine()) != null){
+                final int first = line.indexOf('\t');
+                final int second = line.indexOf('\t', first + 1);
+                if(first != 1 || second == -1)
+                    return null;
+                final String key = line.substring(first + 1, second), value = line.substring(second + 1);
+                switch(line.charAt(0)){
+                    case 'S':
+                        if(!value.equals(stamp(root.resolve(key))))
+                            return null;
+                        break;
+                    case 'C':
+                        index.put(key, value);
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            return Collections.unmodifiableMap(index);
+        }
+    }
+
+    static void write(final Path cache, final Path root, final Map<String,String> index, final Map<String,String> stamps) throws IOException{
+        final Path temp = Files.createTempFile(cache.getParent(), cache.getFileName().toString(), ".tmp");
+        try{
+            try(final BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)){
+                writer.write(header + '\t' + root);
+                writer.newLine();
+                for(final Map.Entry<String,String> entry : stamps.entrySet())
+                    writeLine(writer, 'S', entry);
+                for(final Map.Entry<String,String> entry : index.entrySet())
+                    writeLine(writer, 'C', entry);
+            }
+            try{
+                Files.move(temp, cache, StandardCopyOption.ATOMIC_MOVE);
+            }catch(final AtomicMoveNotSupportedException e){
+                Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }finally{
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeLine(final BufferedWriter writer, final char type, final Map.Entry<String,String> entry) throws IOException{
+        writer.write(type);
+        writer.write('\t');
+        writer.write(entry.getKey());
+        writer.write('\t');
+        writer.write(entry.getValue());
+        writer.newLine();
+    }
+
+    private static String stamp(final Path path){
+        try{
+            return stamp(Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+        }catch(final IOException ignored){
+            return "missing";
+        }
+    }
+
+    private static String stamp(final BasicFileAttributes attributes){
+        return attributes.lastModifiedTime().toMillis() + ":" + (attributes.isDirectory() ? -1 : attributes.size());
+    }
+
+    // ----- walk ---------------
+
+    static Map<String,String> build(final Path root){
+        return build(root, new ConcurrentHashMap<>());
+    }
+
+    // stamps receives the modification time of every directory walked and every source file read
+    static Map<String,String> build(final Path root, final Map<String,String> stamps){
+        final ConcurrentHashMap<String,String> index = new ConcurrentHashMap<>();
+        stamps.put("", stamp(root));
+        ForkJoinPool.commonPool().invoke(new Walk(root, root, index, stamps));
+        return Collections.unmodifiableMap(new HashMap<>(index));
+    }
+
+    private static final class Walk extends RecursiveAction {
+
+        private final Path root, directory;
+        private final ConcurrentHashMap<String,String> index;
+        private final Map<String,String> stamps;
+
+        Walk(final Path root, final Path directory, final ConcurrentHashMap<String,String> index, final Map<String,String> stamps){
+            this.root      = root;
+            this.directory = directory;
+            this.index     = index;
+            this.stamps    = stamps;
+        }
+
+        @Override
+        protected final void compute(){
+            final Map<Path,BasicFileAttributes> entries = new LinkedHashMap<>();
+            boolean module = directory.equals(root);
+            try(final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)){
+                for(final Path path : stream){
+                    entries.put(path, Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                    module |= buildFiles.contains(path.getFileName().toString());
+                }
+            }catch(final IOException | UncheckedIOException ignored){ } // unreadable directory
+
+            final List<Walk> directories = new ArrayList<>();
+            for(final Map.Entry<Path,BasicFileAttributes> entry : entries.entrySet()){
+                final Path path = entry.getKey();
+                final BasicFileAttributes attributes = entry.getValue();
+                final String name = path.getFileName().toString();
+                if(attributes.isDirectory()){
+                    if(!name.startsWith(".") && !skip.contains(name) && !(module && skipOutput.contains(name))){
+                        stamps.put(relative(path), stamp(attributes));
+                        directories.add(new Walk(root, path, index, stamps));
+                    }
+                }else if(attributes.isRegularFile() && isSource(name))
+                    index(path, name, attributes);
+            }
+            invokeAll(directories);
+        }
+
+        private void index(final Path path, final String name, final BasicFileAttributes attributes){
+            final String content;
+            try{
+                content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            }catch(final IOException ignored){
+                return;
+            }
+            final String file = relative(path);
+            stamps.put(file, stamp(attributes));
+            final List<String> classes = new ArrayList<>();
+            parse(content, name, classes);
+            for(final String className : classes)
+                index.merge(className, file, SourceIndex::preferred);
+        }
+
+        private String relative(final Path path){
+            return root.relativize(path).toString().replace('\\', '/');
+        }
+
+    }
+
+    private static boolean isSource(final String name){
+        return name.endsWith(".java") || name.endsWith(".kt") || name.endsWith(".groovy") || name.endsWith(".scala");
+    }
+
+    // hand written sources win over copies in build directories
+    private static String preferred(final String a, final String b){
+        final boolean aBuild = isBuildOutput(a), bBuild = isBuildOutput(b);
+        if(aBuild != bBuild)
+            return aBuild ? b : a;
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static boolean isBuildOutput(final String path){
+        return path.startsWith("target/") || path.startsWith("build/") || path.contains("/target/") || path.contains("/build/");
+    }
+
+    // ----- parse ---------------
+
+    private static final Set<String> declarations = new HashSet<>(Arrays.asList("class", "interface", "enum", "record", "object", "trait"));
+
+    /**
+     * Adds the fully qualified name of every top level type declared in a source file.
+     *
+     * @param source source code
+     * @param fileName file name
+     * @param classes list to add class names to
+     */
+    static void parse(final CharSequence source, final String fileName, final List<String> classes){
+        final String base = fileName.substring(0, fileName.lastIndexOf('.'));
+        final List<String> names = new ArrayList<>();
+        String pkg = "";
+
+        final int len = source.length();
+        int depth = 0;
+        boolean declaration = false; // next identifier is a type name
+        char previous = 0;           // previous significant character
+        for(int i = 0; i < len; ){
+            final char ch = source.charAt(i);
+            if(ch == '/' && i + 1 < len && source.charAt(i + 1) == '/'){
+                while(i < len && source.charAt(i) != '\n')
+                    i++;
+            }else if(ch == '/' && i + 1 < len && source.charAt(i + 1) == '*'){
+                i += 2;
+                while(i + 1 < len && !(source.charAt(i) == '*' && source.charAt(i + 1) == '/'))
+                    i++;
+                i += 2;
+            }else if(ch == '"' || ch == '\''){
+                i = skipString(source, i, ch);
+                previous = ch;
+            }else if(Character.isJavaIdentifierStart(ch)){
+                final int start = i;
+                while(i < len && Character.isJavaIdentifierPart(source.charAt(i)))
+                    i++;
+                final String word = source.subSequence(start, i).toString();
+                if(depth == 0){
+                    if(previous != '.' && previous != ':' && word.equals("package") && pkg.isEmpty()){
+                        final int end = endOfPackage(source, i);
+                        pkg = source.subSequence(i, end).toString().replaceAll("\\s+", "").replace("`", "");
+                        i = end;
+                    }else if(declaration && !declarations.contains(word)){
+                        names.add(word);
+                        declaration = false;
+                    }else if(previous != '.' && previous != ':' && declarations.contains(word))
+                        declaration = true;
+                    else if(!declaration || !declarations.contains(word))
+                        declaration = false;
+                }
+                previous = 'a';
+            }else{
+                if(ch == '{')
+                    depth++;
+                else if(ch == '}')
+                    depth = Math.max(0, depth - 1);
+                if(!Character.isWhitespace(ch)){
+                    if(ch != '@') // @interface
+                        declaration = false;
+                    previous = ch;
+                }
+                i++;
+            }
+        }
+
+        final String prefix = pkg.isEmpty() ? "" : pkg + '.';
+        for(final String name : names)
+            classes.add(prefix + name);
+        if(fileName.endsWith(".kt"))
+            classes.add(prefix + Character.toUpperCase(base.charAt(0)) + base.substring(1) + "Kt"); // top level functions
+        else if(!names.contains(base))
+            classes.add(prefix + base); // scripts and sources that couldn't be parsed
+    }
+
+    private static int skipString(final CharSequence source, final int start, final char quote){
+        final int len = source.length();
+        // text blocks and raw strings
+        if(start + 2 < len && source.charAt(start + 1) == quote && source.charAt(start + 2) == quote){
+            int i = start + 3;
+            while(i + 2 < len && !(source.charAt(i) == quote && source.charAt(i + 1) == quote && source.charAt(i + 2) == quote))
+                i += source.charAt(i) == '\\' ? 2 : 1;
+            return Math.min(len, i + 3);
+        }
+        int i = start + 1;
+        while(i < len && source.charAt(i) != quote && source.charAt(i) != '\n')
+            i += source.charAt(i) == '\\' ? 2 : 1;
+        return Math.min(len, i + 1);
+    }
+
+    private static int endOfPackage(final CharSequence source, final int start){
+        int i = start;
+        final int len = source.length();
+        while(i < len && source.charAt(i) != ';' && source.charAt(i) != '\n')
+            i++;
+        return i;
+    }
+
+}
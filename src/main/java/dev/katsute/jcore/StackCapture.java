@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.Arrays;
+
+/**
+ * Captures the current stack. Java 9+ runtimes load the StackWalker version of this class from the multi-release jar.
+ */
+final class StackCapture {
+
+    private StackCapture(){ }
+
+    /**
+     * Returns the stack of the calling method's caller.
+     *
+     * @param skip how many frames above the calling method to skip
+     * @param limit maximum number of frames
+     * @return stack trace
+     */
+    static StackTraceElement[] capture(final int skip, final int limit){
+        final StackTraceElement[] trace = new Throwable().getStackTrace();
+        final int start = Math.min(trace.length, 1 + skip);
+        return Arrays.copyOfRange(trace, start, (int) Math.min(trace.length, (long) start + limit));
+    }
+
+    /**
+     * Returns the stack starting at the first frame that isn't from a class.
+     *
+     * @param className class to skip
+     * @param limit maximum number of frames
+     * @return stack trace
+     */
+    static StackTraceElement[] captureOutside(final String className, final int limit){
+        final StackTraceElement[] trace = new Throwable().getStackTrace();
+        int start = 1;
+        while(start < trace.length - 1 && trace[start].getClassName().equals(className))
+            start++;
+        return Arrays.copyOfRange(trace, start, (int) Math.min(trace.length, (long) start + limit));
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.*;
+
+/**
+ * Decides which stack frames are shown in annotation stack traces. Frames are matched against include and exclude package prefixes; the longest matching prefix decides, so an include can reopen part of an excluded package. Consecutive excluded frames are collapsed into a single line.
+ *
+ * @see StackFrameFilter.Builder
+ * @see Workflow#setStackFrameFilter(StackFrameFilter)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public final class StackFrameFilter {
+
+    private static final List<String> defaults = Collections.unmodifiableList(Arrays.asList(
+        // reflection
+        "java.lang.reflect.",
+        "jdk.internal.reflect.",
+        "sun.reflect.",
+        // junit
+        "org.junit.platform.",
+        "org.junit.jupiter.engine.",
+        "org.junit.runner.",
+        "org.junit.runners.",
+        "org.junit.internal.",
+        "junit.framework.",
+        // surefire
+        "org.apache.maven.surefire.",
+        // gradle
+        "org.gradle.",
+        "worker.org.gradle."
+    ));
+
+    /**
+     * Filter that hides JUnit, Surefire, Gradle worker, and reflection frames.
+     *
+     * @see Builder#excludeDefaults()
+     * @since 2.1.0
+     */
+    public static final StackFrameFilter DEFAULT = new Builder().excludeDefaults().build();
+
+    private final List<String> include, exclude;
+    private final Node root;
+
+    private StackFrameFilter(final List<String> include, final List<String> exclude){
+        this.include = Collections.unmodifiableList(new ArrayList<>(include));
+        this.exclude = Collections.unmodifiableList(new ArrayList<>(exclude));
+
+        final Node root = new Node();
+        for(final String prefix : exclude)
+            root.insert(prefix, 0).mode = Node.EXCLUDE;
+        for(final String prefix : include) // include wins when a prefix is in both
+            root.insert(prefix, 0).mode = Node.INCLUDE;
+        this.root = root;
+    }
+
+    /**
+     * Returns if a frame should be shown.
+     *
+     * @param element stack frame
+     * @return if frame is shown
+     *
+     * @since 2.1.0
+     */
+    public final boolean accept(final StackTraceElement element){
+        return accept(element.getClassName());
+    }
+
+    /**
+     * Returns if frames from a class should be shown.
+     *
+     * @param className class name
+     * @return if frame is shown
+     *
+     * @since 2.1.0
+     */
+    public final boolean accept(final String className){
+        byte mode = Node.NONE;
+        Node node = root;
+        for(int i = 0, len = className.length(); node != null; i++){
+            if(node.mode != Node.NONE)
+                mode = node.mode;
+            if(i == len)
+                break;
+            node = node.child(className.charAt(i));
+        }
+        return mode != Node.EXCLUDE;
+    }
+
+    @Override
+    public String toString(){
+        return "StackFrameFilter{" +
+               "include=" + include +
+               ", exclude=" + exclude +
+               '}';
+    }
+
+    // prefix trie, children are kept in parallel arrays since package names share most characters
+    private static final class Node {
+
+        private static final byte NONE = 0, INCLUDE = 1, EXCLUDE = 2;
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private byte mode = NONE;
+
+        private Node child(final char ch){
+            final char[] keys = this.keys;
+            for(int i = 0; i < keys.length; i++)
+                if(keys[i] == ch)
+                    return children[i];
+            return null;
+        }
+
+        private Node insert(final String prefix, final int index){
+            if(index == prefix.length())
+                return this;
+            final char ch = prefix.charAt(index);
+            Node next = child(ch);
+            if(next == null){
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = ch;
+                children[children.length - 1] = next = new Node();
+            }
+            return next.insert(prefix, index + 1);
+        }
+
+    }
+
+    /**
+     * Builder class for {@link StackFrameFilter}.
+     *
+     * @see StackFrameFilter
+     * @author Katsute
+     * @since 2.1.0
+     * @version 2.1.0
+     */
+    public static final class Builder {
+
+        private final List<String> include = new ArrayList<>();
+        private final List<String> exclude = new ArrayList<>();
+
+        /**
+         * Creates a builder object for {@link StackFrameFilter.Builder}.
+         *
+         * @since 2.1.0
+         */
+        public Builder(){ }
+
+        /**
+         * Shows frames from classes starting with any of the prefixes.
+         *
+         * @param prefixes class name prefixes
+         * @return builder
+         *
+         * @since 2.1.0
+         */
+        public final Builder include(final String... prefixes){
+            for(final String prefix : prefixes)
+                include.add(Objects.requireNonNull(prefix, "Prefix must not be null"));
+            return this;
+        }
+
+        /**
+         * Hides frames from classes starting with any of the prefixes.
+         *
+         * @param prefixes class name prefixes
+         * @return builder
+         *
+         * @since 2.1.0
+         */
+        public final Builder exclude(final String... prefixes){
+            for(final String prefix : prefixes)
+                exclude.add(Objects.requireNonNull(prefix, "Prefix must not be null"));
+            return this;
+        }
+
+        /**
+         * Hides JUnit, Surefire, Gradle worker, and reflection frames.
+         *
+         * @return builder
+         *
+         * @see StackFrameFilter#DEFAULT
+         * @since 2.1.0
+         */
+        public final Builder excludeDefaults(){
+            exclude.addAll(defaults);
+            return this;
+        }
+
+        /**
+         * Returns {@link StackFrameFilter}.
+         *
+         * @return {@link StackFrameFilter}
+         *
+         * @since 2.1.0
+         */
+        public final StackFrameFilter build(){
+            return new StackFrameFilter(include, exclude);
+        }
+
+        @Override
+        public String toString(){
+            return "Builder{" +
+                   "include=" + include +
+                   ", exclude=" + exclude +
+                   '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+final class StandardOutputSink implements CommandSink {
+
+    static final StandardOutputSink INSTANCE = new StandardOutputSink();
+
+    private StandardOutputSink(){ }
+
+    // System.out is read on every call so redirection with System#setOut is respected
+    @Override
+    public final void write(final CharSequence line){
+        System.out.println(line);
+    }
+
+    @Override
+    public final void flush(){
+        System.out.flush();
+    }
+
+    @Override
+    public String toString(){
+        return "StandardOutputSink{}";
+    }
+
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.Arrays;
+
+/**
+ * The summary class writes Markdown to the job summary. Content is appended to the summary file as it is added; tables are held until they are closed so they are written in one piece. Once the summary reaches the size limit a notice is written and further content is ignored. The size of the summary file is read before every write, so content written by other processes counts toward the limit.
+ *
+ * @see Table
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public abstract class Summary {
+
+    private Summary(){ }
+
+    private static final String EOL = System.lineSeparator();
+
+    private static final long limit = 1024 * 1024;
+
+    private static final String truncated = EOL + EOL + "> **Summary truncated, the job summary size limit was reached**" + EOL;
+
+    private static FileCommand file = null;
+    private static boolean full = false;
+
+    /**
+     * Returns if the job summary is supported by the runner.
+     *
+     * @return if a summary can be written
+     *
+     * @since 2.1.0
+     */
+    public static boolean isAvailable(){
+        return FileCommand.get("GITHUB_STEP_SUMMARY") != null;
+    }
+
+    /**
+     * Returns if the summary reached the size limit and content is being ignored.
+     *
+     * @return if the summary is truncated
+     *
+     * @since 2.1.0
+     */
+    public static synchronized boolean isTruncated(){
+        return full;
+    }
+
+    /**
+     * Adds a level 1 heading.
+     *
+     * @param heading heading text
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @see #addHeading(String, int)
+     * @since 2.1.0
+     */
+    public static void addHeading(final String heading){
+        addHeading(heading, 1);
+    }
+
+    /**
+     * Adds a heading.
+     *
+     * @param heading heading text
+     * @param level heading level, between 1 and 6
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @see #addHeading(String)
+     * @since 2.1.0
+     */
+    public static void addHeading(final String heading, final int level){
+        if(level < 1 || level > 6)
+            throw new IllegalArgumentException("Heading level must be between 1 and 6");
+        final StringBuilder builder = new StringBuilder(heading.length() + 16);
+        for(int i = 0; i < level; i++)
+            builder.append('#');
+        builder.append(' ');
+        appendInline(builder, heading);
+        write(builder.append(EOL).append(EOL));
+    }
+
+    /**
+     * Adds text as is.
+     *
+     * @param markdown Markdown text
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @since 2.1.0
+     */
+    public static void addRaw(final String markdown){
+        write(markdown);
+    }
+
+    /**
+     * Adds a paragraph.
+     *
+     * @param text paragraph text
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @since 2.1.0
+     */
+    public static void addParagraph(final String text){
+        write(text + EOL + EOL);
+    }
+
+    /**
+     * Adds a bulleted list.
+     *
+     * @param items list items
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @since 2.1.0
+     */
+    public static void addList(final String... items){
+        final StringBuilder builder = new StringBuilder();
+        for(final String item : items){
+            builder.append("- ");
+            appendInline(builder, item);
+            builder.append(EOL);
+        }
+        write(builder.append(EOL));
+    }
+
+    /**
+     * Adds a code block.
+     *
+     * @param code code
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @see #addCodeBlock(String, String)
+     * @since 2.1.0
+     */
+    public static void addCodeBlock(final String code){
+        addCodeBlock(code, null);
+    }
+
+    /**
+     * Adds a code block.
+     *
+     * @param code code
+     * @param language language used for syntax highlighting
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @see #addCodeBlock(String)
+     * @since 2.1.0
+     */
+    public static void addCodeBlock(final String code, final String language){
+        // fence must be longer than any run of backticks in the code
+        int run = 0, longest = 0;
+        for(int i = 0, len = code.length(); i < len; i++)
+            if(code.charAt(i) == '`')
+                longest = Math.max(longest, ++run);
+            else
+                run = 0;
+        final StringBuilder fence = new StringBuilder();
+        for(int i = 0, len = Math.max(3, longest + 1); i < len; i++)
+            fence.append('`');
+
+        final StringBuilder builder = new StringBuilder(code.length() + 32)
+            .append(fence).append(language != null ? language : "").append(EOL)
+            .append(code);
+        if(!code.endsWith("\n"))
+            builder.append(EOL);
+        write(builder.append(fence).append(EOL).append(EOL));
+    }
+
+    /**
+     * Adds a collapsible section.
+     *
+     * @param label text shown when collapsed
+     * @param content Markdown shown when expanded
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @since 2.1.0
+     */
+    public static void addDetails(final String label, final String content){
+        final StringBuilder builder = new StringBuilder(content.length() + label.length() + 64)
+            .append("<details><summary>");
+        appendInline(builder, label);
+        write(builder
+            .append("</summary>").append(EOL).append(EOL)
+            .append(content).append(EOL).append(EOL)
+            .append("</details>").append(EOL).append(EOL));
+    }
+
+    /**
+     * Adds a horizontal rule.
+     *
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @since 2.1.0
+     */
+    public static void addSeparator(){
+        write("---" + EOL + EOL);
+    }
+
+    /**
+     * Starts a table. Rows are held until the table is closed and then written together, so other content can't end up inside the table.
+     *
+     * @param headers column headers
+     * @return table
+     * @throws IllegalStateException if the job summary is not supported by the runner
+     *
+     * @see Table
+     * @since 2.1.0
+     */
+    public static Table addTable(final String... headers){
+        if(headers.length == 0)
+            throw new IllegalArgumentException("Table must have at least one column");
+        final StringBuilder builder = new StringBuilder();
+        appendRow(builder, headers);
+        builder.append('|');
+        for(int i = 0; i < headers.length; i++)
+            builder.append(" --- |");
+        return new Table(headers.length, builder.append(EOL));
+    }
+
+    /**
+     * Writes any pending content to the summary file.
+     *
+     * @since 2.1.0
+     */
+    public static synchronized void flush(){
+        if(file != null)
+            file.flush();
+    }
+
+    //
+
+    private static void write(final CharSequence markdown){
+        write(markdown, null, null, 0);
+    }
+
+    // content may be cut at any of the char offsets in ends, with lengths holding the UTF-8 length up to each; it is never cut if count is 0
+    private static synchronized void write(final CharSequence markdown, final int[] ends, final long[] lengths, final int count){
+        if(file == null){
+            final FileCommand file = FileCommand.get("GITHUB_STEP_SUMMARY");
+            if(file == null)
+                throw new IllegalStateException("Job summary is not supported, GITHUB_STEP_SUMMARY is not set");
+            Summary.file = file;
+        }
+        if(full)
+            return;
+
+        final long notice = FileCommand.utf8Length(truncated);
+        final long size   = file.size();
+        final long room   = limit - notice - size;
+        final long length = count > 0 ? lengths[count - 1] : FileCommand.utf8Length(markdown);
+        if(length <= room){
+            file.append(markdown);
+            return;
+        }
+
+        int cut = count - 2; // last offset before the end
+        while(cut >= 0 && lengths[cut] > room)
+            cut--;
+        if(cut >= 0)
+            file.append(markdown.subSequence(0, ends[cut]));
+        if(size + notice <= limit)
+            file.append(truncated);
+        full = true;
+        file.flush();
+    }
+
+    private static void appendRow(final StringBuilder builder, final Object[] cells){
+        builder.append('|');
+        for(final Object cell : cells){
+            builder.append(' ');
+            appendInline(builder, cell != null ? cell.toString() : "");
+            builder.append(" |");
+        }
+        builder.append(EOL);
+    }
+
+    // keeps text on one line and inside its table cell
+    private static void appendInline(final StringBuilder builder, final String text){
+        for(int i = 0, len = text.length(); i < len; i++){
+            final char ch = text.charAt(i);
+            switch(ch){
+                case '|':
+                    builder.append("\\|");
+                    break;
+                case '\r':
+                    if(i + 1 < len && text.charAt(i + 1) == '\n')
+                        i++;
+                    // fall through
+                case '\n':
+                    builder.append("<br>");
+                    break;
+                default:
+                    builder.append(ch);
+            }
+        }
+    }
+
+    /**
+     * A table in the job summary. Rows are held until the table is closed; close the table to write it. A table never holds more than the summary size limit, rows past it are ignored.
+     *
+     * @see Summary#addTable(String...)
+     * @author Katsute
+     * @since 2.1.0
+     * @version 2.1.0
+     */
+    public static final class Table implements AutoCloseable {
+
+        private final int columns;
+        private final StringBuilder content;
+        private final StringBuilder row = new StringBuilder();
+
+        // char offset and UTF-8 length after the header and after each row, where the table may be cut if it does not fit
+        private int[] ends = new int[16];
+        private long[] lengths = new long[16];
+        private int count = 0;
+
+        private boolean closed = false;
+
+        Table(final int columns, final StringBuilder header){
+            this.columns = columns;
+            this.content = header;
+            mark(FileCommand.utf8Length(header));
+        }
+
+        /**
+         * Adds a row. Missing cells are left empty and extra cells are ignored.
+         *
+         * @param cells cell values
+         * @return table
+         *
+         * @since 2.1.0
+         */
+        public final synchronized Table addRow(final Object... cells){
+            if(closed)
+                throw new IllegalStateException("Table is closed");
+            if(lengths[count - 1] > limit)
+                return this; // could never be written
+            row.setLength(0);
+            appendRow(row, cells.length == columns ? cells : Arrays.copyOf(cells, columns));
+            content.append(row);
+            mark(lengths[count - 1] + FileCommand.utf8Length(row));
+            return this;
+        }
+
+        private void mark(final long length){
+            if(count == ends.length){
+                ends    = Arrays.copyOf(ends, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            ends[count]    = content.length();
+            lengths[count] = length;
+            count++;
+        }
+
+        /**
+         * Writes and ends the table. If the summary can't hold the whole table, the rows that fit are written followed by the truncation notice.
+         *
+         * @since 2.1.0
+         */
+        @Override
+        public final synchronized void close(){
+            if(!closed){
+                closed = true;
+                content.append(EOL);
+                mark(lengths[count - 1] + EOL.length());
+                write(content, ends, lengths, count);
+            }
+        }
+
+    }
+
+}
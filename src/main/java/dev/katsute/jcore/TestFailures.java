@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.*;
+
+/**
+ * Test failure classification shared by {@link Workflow#annotateTest(ThrowingRunnable)}, {@link WorkflowExtension}, and {@link WorkflowSummaryListener}. Each exception class is classified once by the {@link ExceptionClassifier}s.
+ */
+final class TestFailures {
+
+    // loaded once, the first classifier to return a classification wins
+    private static final List<ExceptionClassifier> classifiers;
+
+    static{
+        final List<ExceptionClassifier> loaded = new ArrayList<>();
+        final Iterator<ExceptionClassifier> iterator = ServiceLoader.load(ExceptionClassifier.class).iterator();
+        while(true){
+            try{
+                if(!iterator.hasNext())
+                    break;
+            }catch(final ServiceConfigurationError ignored){ // unreadable provider list
+                break;
+            }
+            try{
+                loaded.add(iterator.next());
+            }catch(final ServiceConfigurationError ignored){ } // broken provider, skip it
+        }
+        loaded.add(DefaultExceptionClassifier.INSTANCE);
+        classifiers = Collections.unmodifiableList(loaded);
+    }
+
+    private static final ClassValue<ExceptionClassifier.Classification> classifications = new ClassValue<ExceptionClassifier.Classification>(){
+        @SuppressWarnings("unchecked")
+        @Override
+        protected final ExceptionClassifier.Classification computeValue(final Class<?> type){
+            for(final ExceptionClassifier classifier : classifiers){
+                final ExceptionClassifier.Classification classification = classifier.classify((Class<? extends Throwable>) type);
+                if(classification != null)
+                    return classification;
+            }
+            return ExceptionClassifier.Classification.ERROR;
+        }
+    };
+
+    // assertion and assumption frames before the test code
+    private static final StackFrameFilter library = new StackFrameFilter.Builder()
+        .exclude(
+            "org.junit.jupiter.api.Assert",
+            "org.junit.jupiter.api.Assumptions",
+            "org.junit.jupiter.api.Fail",
+            "org.junit.Assert",
+            "org.junit.Assume",
+            "junit.framework.Assert",
+            "org.opentest4j.",
+            "org.assertj.",
+            "org.hamcrest.",
+            "com.google.common.truth.",
+            "org.testng.Assert",
+            "kotlin.test."
+        )
+        .build();
+
+    private TestFailures(){ }
+
+    static ExceptionClassifier.Classification classify(final Throwable e){
+        return classifications.get(e.getClass());
+    }
+
+    /**
+     * Removes the leading assertion library frames, so the trace starts at the test code.
+     *
+     * @param trace stack trace
+     * @return trimmed stack trace, or the stack trace if every frame is from an assertion library
+     */
+    static StackTraceElement[] trimLibraryFrames(final StackTraceElement[] trace){
+        for(int i = 0; i < trace.length; i++)
+            if(library.accept(trace[i]))
+                return i == 0 ? trace : Arrays.copyOfRange(trace, i, trace.length);
+        return trace;
+    }
+
+}
@@ -18,15 +18,24 @@
 
 package dev.katsute.jcore;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The workflow class replicates the functionality of GitHub workflow commands.
  *
  * @author Katsute
  * @since 1.0.0
- * @version 2.0.0
+ * @version 2.1.0
  */
 @SuppressWarnings("GrazieInspection")
 public abstract class Workflow {
@@ -59,6 +68,39 @@ public abstract class Workflow {
         issueCommand("add-mask", secret);
     }
 
+    /**
+     * Sets an environment variable for the following steps in the job. Values with multiple lines are supported. The variable is written to {@code GITHUB_ENV} before this method returns.
+     *
+     * @param name name of variable
+     * @param value variable value
+     *
+     * @since 2.1.0
+     */
+    public static void exportVariable(final String name, final Object value){
+        final FileCommand file = FileCommand.get("GITHUB_ENV");
+        if(file != null)
+            file.appendKeyValue(name, toCommandValue(value));
+        else
+            issueCommand("set-env", new LinkedHashMap<String,Object>(){{
+                put("name", name);
+            }}, value);
+    }
+
+    /**
+     * Prepends a directory to the PATH for the following steps in the job. The directory is written to {@code GITHUB_PATH} before this method returns.
+     *
+     * @param path directory path
+     *
+     * @since 2.1.0
+     */
+    public static void addPath(final String path){
+        final FileCommand file = FileCommand.get("GITHUB_PATH");
+        if(file != null)
+            file.appendLine(path);
+        else
+            issueCommand("add-path", path);
+    }
+
     /**
      * Returns a specified workflow input or null.
      *
@@ -102,16 +144,8 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static String getInput(final String name, final boolean required, final boolean trimWhitespace){
-        final String input = name != null ? "INPUT_" + name.replace(' ', '_').toUpperCase() : "";
-        final String value = System.getenv(input);
-        if(required && value == null)
-            throw new NullPointerException("Input '" + name + "' is required and not supplied");
-        else
-            return value != null
-                ? trimWhitespace
-                    ? value.trim()
-                    : value
-                : null;
+        final InputRegistry.Entry input = requireInput(name, required);
+        return input != null ? input.value(trimWhitespace) : null;
     }
 
     /**
@@ -156,13 +190,71 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static String[] getMultilineInput(final String name, final boolean required, final boolean trimWhitespace){
-        final String input = getInput(name, required, trimWhitespace);
-        return input == null
-            ? new String[0]
-            : Arrays.stream(input
-                .split("\\n"))
-                .filter(s -> !s.isEmpty())
-                .toArray(String[]::new);
+        final InputRegistry.Entry input = requireInput(name, required);
+        return input != null ? input.lines(trimWhitespace) : new String[0];
+    }
+
+    /**
+     * Returns a lazy stream of the lines of a workflow input. Lines are trimmed, empty lines are skipped, and each line is a view over the input value that is only copied when {@link CharSequence#toString()} is called.
+     *
+     * @param name name of input
+     * @return stream of lines
+     *
+     * @see #streamMultilineInput(String, boolean)
+     * @see #iterateMultilineInput(String)
+     * @see #getMultilineInput(String)
+     * @since 2.1.0
+     */
+    public static Stream<CharSequence> streamMultilineInput(final String name){
+        return streamMultilineInput(name, false);
+    }
+
+    /**
+     * Returns a lazy stream of the lines of a workflow input. Lines are trimmed, empty lines are skipped, and each line is a view over the input value that is only copied when {@link CharSequence#toString()} is called.
+     *
+     * @param name name of input
+     * @param required if true, a {@link NullPointerException} will be thrown if the value is null
+     * @return stream of lines
+     *
+     * @see #streamMultilineInput(String)
+     * @see #iterateMultilineInput(String, boolean)
+     * @see #getMultilineInput(String, boolean)
+     * @since 2.1.0
+     */
+    public static Stream<CharSequence> streamMultilineInput(final String name, final boolean required){
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterateMultilineInput(name, required).iterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns the lines of a workflow input, found lazily while iterating. Lines are trimmed, empty lines are skipped, and each line is a view over the input value that is only copied when {@link CharSequence#toString()} is called.
+     *
+     * @param name name of input
+     * @return lines
+     *
+     * @see #iterateMultilineInput(String, boolean)
+     * @see #streamMultilineInput(String)
+     * @see #getMultilineInput(String)
+     * @since 2.1.0
+     */
+    public static Iterable<CharSequence> iterateMultilineInput(final String name){
+        return iterateMultilineInput(name, false);
+    }
+
+    /**
+     * Returns the lines of a workflow input, found lazily while iterating. Lines are trimmed, empty lines are skipped, and each line is a view over the input value that is only copied when {@link CharSequence#toString()} is called.
+     *
+     * @param name name of input
+     * @param required if true, a {@link NullPointerException} will be thrown if the value is null
+     * @return lines
+     *
+     * @see #iterateMultilineInput(String)
+     * @see #streamMultilineInput(String, boolean)
+     * @see #getMultilineInput(String, boolean)
+     * @since 2.1.0
+     */
+    public static Iterable<CharSequence> iterateMultilineInput(final String name, final boolean required){
+        final InputRegistry.Entry input = requireInput(name, required);
+        return new Lines(input != null ? input.value : "");
     }
 
     /**
@@ -207,17 +299,264 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static boolean getBooleanInput(final String name, final boolean required, final boolean trimWhitespace){
-        final String input = getInput(name, required, trimWhitespace);
+        final InputRegistry.Entry input = requireInput(name, required);
+        if(input == null)
+            return false;
+        final Boolean value = input.bool(trimWhitespace);
+        if(value == null)
+            throw new IllegalArgumentException("Input '" + name + "' is not a boolean type");
+        return value;
+    }
+
+    /**
+     * Returns the value of a workflow input as an int.
+     *
+     * @param name name of input
+     * @return value of input
+     * @throws NullPointerException if the input is missing or empty
+     * @throws IllegalArgumentException if the input is not an int
+     *
+     * @see #getIntInput(String, int)
+     * @since 2.1.0
+     */
+    public static int getIntInput(final String name){
+        return typedInput(name, InputConverter.INT, InputConverter.INT, "int", null, true);
+    }
+
+    /**
+     * Returns the value of a workflow input as an int, or a default value if the input is missing or empty.
+     *
+     * @param name name of input
+     * @param defaultValue default value
+     * @return value of input
+     * @throws IllegalArgumentException if the input is not an int
+     *
+     * @see #getIntInput(String)
+     * @since 2.1.0
+     */
+    public static int getIntInput(final String name, final int defaultValue){
+        return typedInput(name, InputConverter.INT, InputConverter.INT, "int", defaultValue, false);
+    }
+
+    /**
+     * Returns the value of a workflow input as a long.
+     *
+     * @param name name of input
+     * @return value of input
+     * @throws NullPointerException if the input is missing or empty
+     * @throws IllegalArgumentException if the input is not a long
+     *
+     * @see #getLongInput(String, long)
+     * @since 2.1.0
+     */
+    public static long getLongInput(final String name){
+        return typedInput(name, InputConverter.LONG, InputConverter.LONG, "long", null, true);
+    }
+
+    /**
+     * Returns the value of a workflow input as a long, or a default value if the input is missing or empty.
+     *
+     * @param name name of input
+     * @param defaultValue default value
+     * @return value of input
+     * @throws IllegalArgumentException if the input is not a long
+     *
+     * @see #getLongInput(String)
+     * @since 2.1.0
+     */
+    public static long getLongInput(final String name, final long defaultValue){
+        return typedInput(name, InputConverter.LONG, InputConverter.LONG, "long", defaultValue, false);
+    }
+
+    /**
+     * Returns the value of a workflow input as a double.
+     *
+     * @param name name of input
+     * @return value of input
+     * @throws NullPointerException if the input is missing or empty
+     * @throws IllegalArgumentException if the input is not a double
+     *
+     * @see #getDoubleInput(String, double)
+     * @since 2.1.0
+     */
+    public static double getDoubleInput(final String name){
+        return typedInput(name, InputConverter.DOUBLE, InputConverter.DOUBLE, "double", null, true);
+    }
 
-        if(input != null)
-            if(input.equalsIgnoreCase("true"))
-                return true;
-            else if(input.equalsIgnoreCase("false"))
-                return false;
+    /**
+     * Returns the value of a workflow input as a double, or a default value if the input is missing or empty.
+     *
+     * @param name name of input
+     * @param defaultValue default value
+     * @return value of input
+     * @throws IllegalArgumentException if the input is not a double
+     *
+     * @see #getDoubleInput(String)
+     * @since 2.1.0
+     */
+    public static double getDoubleInput(final String name, final double defaultValue){
+        return typedInput(name, InputConverter.DOUBLE, InputConverter.DOUBLE, "double", defaultValue, false);
+    }
+
+    /**
+     * Returns the value of a workflow input as a duration. Durations are written like {@code 30s}, {@code 1h30m}, {@code 250ms}, or ISO-8601 {@code PT1H30M}.
+     *
+     * @param name name of input
+     * @return value of input
+     * @throws NullPointerException if the input is missing or empty
+     * @throws IllegalArgumentException if the input is not a duration
+     *
+     * @see #getDurationInput(String, Duration)
+     * @since 2.1.0
+     */
+    public static Duration getDurationInput(final String name){
+        return typedInput(name, InputConverter.DURATION, InputConverter.DURATION, "duration", null, true);
+    }
+
+    /**
+     * Returns the value of a workflow input as a duration, or a default value if the input is missing or empty. Durations are written like {@code 30s}, {@code 1h30m}, {@code 250ms}, or ISO-8601 {@code PT1H30M}.
+     *
+     * @param name name of input
+     * @param defaultValue default value
+     * @return value of input
+     * @throws IllegalArgumentException if the input is not a duration
+     *
+     * @see #getDurationInput(String)
+     * @since 2.1.0
+     */
+    public static Duration getDurationInput(final String name, final Duration defaultValue){
+        return typedInput(name, InputConverter.DURATION, InputConverter.DURATION, "duration", defaultValue, false);
+    }
+
+    /**
+     * Returns the value of a workflow input as a size in bytes. KB, MB, GB, and TB are decimal; KiB, MiB, GiB, TiB, and the bare K, M, G, and T are binary.
+     *
+     * @param name name of input
+     * @return value of input
+     * @throws NullPointerException if the input is missing or empty
+     * @throws IllegalArgumentException if the input is not a size
+     *
+     * @see #getSizeInput(String, long)
+     * @since 2.1.0
+     */
+    public static long getSizeInput(final String name){
+        return typedInput(name, InputConverter.SIZE, InputConverter.SIZE, "size", null, true);
+    }
+
+    /**
+     * Returns the value of a workflow input as a size in bytes, or a default value if the input is missing or empty. KB, MB, GB, and TB are decimal; KiB, MiB, GiB, TiB, and the bare K, M, G, and T are binary.
+     *
+     * @param name name of input
+     * @param defaultValue default size in bytes
+     * @return value of input
+     * @throws IllegalArgumentException if the input is not a size
+     *
+     * @see #getSizeInput(String)
+     * @since 2.1.0
+     */
+    public static long getSizeInput(final String name, final long defaultValue){
+        return typedInput(name, InputConverter.SIZE, InputConverter.SIZE, "size", defaultValue, false);
+    }
+
+    /**
+     * Returns the value of a workflow input as an enum constant. Case is ignored and {@code -} and spaces match {@code _}.
+     *
+     * @param name name of input
+     * @param type enum class
+     * @param <E> enum type
+     * @return value of input
+     * @throws NullPointerException if the input is missing or empty
+     * @throws IllegalArgumentException if the input is not a constant of the enum
+     *
+     * @see #getEnumInput(String, Class, Enum)
+     * @since 2.1.0
+     */
+    public static <E extends Enum<E>> E getEnumInput(final String name, final Class<E> type){
+        return typedInput(name, type, InputConverter.enumeration(type), type.getSimpleName(), null, true);
+    }
+
+    /**
+     * Returns the value of a workflow input as an enum constant, or a default value if the input is missing or empty. Case is ignored and {@code -} and spaces match {@code _}.
+     *
+     * @param name name of input
+     * @param type enum class
+     * @param <E> enum type
+     * @param defaultValue default value
+     * @return value of input
+     * @throws IllegalArgumentException if the input is not a constant of the enum
+     *
+     * @see #getEnumInput(String, Class)
+     * @since 2.1.0
+     */
+    public static <E extends Enum<E>> E getEnumInput(final String name, final Class<E> type, final E defaultValue){
+        return typedInput(name, type, InputConverter.enumeration(type), type.getSimpleName(), defaultValue, false);
+    }
+
+    /**
+     * Returns the value of a workflow input as a list. The value is split on commas and new lines, items are trimmed and empty items are removed.
+     *
+     * @param name name of input
+     * @return value of input
+     * @throws NullPointerException if the input is missing or empty
+     *
+     * @see #getListInput(String, String[])
+     * @since 2.1.0
+     */
+    public static String[] getListInput(final String name){
+        return typedInput(name, InputConverter.LIST, InputConverter.LIST, "list", null, true).clone();
+    }
+
+    /**
+     * Returns the value of a workflow input as a list, or a default value if the input is missing or empty. The value is split on commas and new lines, items are trimmed and empty items are removed.
+     *
+     * @param name name of input
+     * @param defaultValue default value
+     * @return value of input
+     *
+     * @see #getListInput(String)
+     * @since 2.1.0
+     */
+    public static String[] getListInput(final String name, final String[] defaultValue){
+        final String[] list = typedInput(name, InputConverter.LIST, InputConverter.LIST, "list", defaultValue, false);
+        return list != null ? list.clone() : null;
+    }
+
+    /**
+     * Creates an object and sets its {@link Input} fields from the workflow inputs. The class must have a constructor without parameters; fields of inputs that are not supplied or empty keep their initial value.
+     *
+     * @param type class to create
+     * @param <T> type
+     * @return object with inputs set
+     * @throws NullPointerException if a required input is missing or empty
+     * @throws IllegalArgumentException if the class can't be bound or an input can't be converted to its field type
+     *
+     * @see Input
+     * @since 2.1.0
+     */
+    public static <T> T bindInputs(final Class<T> type){
+        return type.cast(InputBinder.get(type).bind());
+    }
+
+    // empty inputs count as missing, the runner sets declared inputs that weren't supplied to an empty string
+    static <T> T typedInput(final String name, final Object key, final Function<String,T> parser, final String type, final T defaultValue, final boolean required){
+        final InputRegistry.Entry input = InputRegistry.get().find(name);
+        if(input == null || input.trimmed.isEmpty())
+            if(required)
+                throw new NullPointerException("Input '" + name + "' is required and not supplied");
             else
-                throw new IllegalArgumentException("Input '" + name + "' is not a boolean type");
-        else
-            return false;
+                return defaultValue;
+        try{
+            return input.parse(key, parser);
+        }catch(final IllegalArgumentException e){
+            throw new IllegalArgumentException("Input '" + name + "' is not a valid " + type + ": '" + input.trimmed + "'" + (e.getMessage() != null ? ", " + e.getMessage() : ""));
+        }
+    }
+
+    static InputRegistry.Entry requireInput(final String name, final boolean required){
+        final InputRegistry.Entry input = InputRegistry.get().find(name);
+        if(required && input == null)
+            throw new NullPointerException("Input '" + name + "' is required and not supplied");
+        return input;
     }
 
     /**
@@ -234,6 +573,54 @@ public abstract class Workflow {
         }}, value);
     }
 
+    /**
+     * Sets the workflow step output from a reader. The value is read ahead, in memory or in a temporary file if it is large, so a delimiter that does not appear in it can be picked before the output file is written.
+     *
+     * @param name output key name
+     * @param value output value
+     * @throws UncheckedIOException if the value could not be read or written
+     *
+     * @see #setOutput(String, Object)
+     * @see #setOutputFrom(String, InputStream)
+     * @see #setOutputFrom(String, Path)
+     * @since 2.1.0
+     */
+    public static void setOutputFrom(final String name, final Reader value){
+        streamFileCommand("GITHUB_OUTPUT", "set-output", name, value);
+    }
+
+    /**
+     * Sets the workflow step output from a UTF-8 input stream. The value is read ahead, in memory or in a temporary file if it is large, so a delimiter that does not appear in it can be picked before the output file is written.
+     *
+     * @param name output key name
+     * @param value output value
+     * @throws UncheckedIOException if the value could not be read or written
+     *
+     * @see #setOutput(String, Object)
+     * @see #setOutputFrom(String, Reader)
+     * @see #setOutputFrom(String, Path)
+     * @since 2.1.0
+     */
+    public static void setOutputFrom(final String name, final InputStream value){
+        streamFileCommand("GITHUB_OUTPUT", "set-output", name, value);
+    }
+
+    /**
+     * Sets the workflow step output to the contents of a UTF-8 file. The file is scanned for a delimiter that does not appear in it and then streamed to the output file without being held in memory, so it must not change until this method returns.
+     *
+     * @param name output key name
+     * @param value file to read the output value from
+     * @throws UncheckedIOException if the value could not be read or written
+     *
+     * @see #setOutput(String, Object)
+     * @see #setOutputFrom(String, Reader)
+     * @see #setOutputFrom(String, InputStream)
+     * @since 2.1.0
+     */
+    public static void setOutputFrom(final String name, final Path value){
+        streamFileCommand("GITHUB_OUTPUT", "set-output", name, value);
+    }
+
     /**
      * Toggles command echo. This does not disable commands.
      *
@@ -258,8 +645,7 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static void setFailed(final String error){
-        final Throwable throwable = new Throwable();
-        error(Arrays.copyOfRange(throwable.getStackTrace(), 1, throwable.getStackTrace().length), error);
+        error(StackCapture.capture(1, stackTraceLimit), error);
         Runtime.getRuntime().addShutdownHook(new Thread(() -> System.exit(1)));
     }
 
@@ -273,7 +659,7 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static void info(final String message){
-        System.out.println(message);
+        sink().write(String.valueOf(message));
     }
 
     /**
@@ -284,7 +670,126 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static boolean isDebug(){
-        return "1".equals(System.getenv("RUNNER_DEBUG"));
+        return debug;
+    }
+
+    private static final boolean debug = "1".equals(System.getenv("RUNNER_DEBUG"));
+
+    private static volatile LogLevel level = debug ? LogLevel.DEBUG : LogLevel.NOTICE;
+
+    /**
+     * Sets the lowest level printed by the supplier and level methods. By default this is {@link LogLevel#DEBUG} if the runner is in debug mode and {@link LogLevel#NOTICE} otherwise.
+     *
+     * @param level lowest level to print
+     *
+     * @see LogLevel
+     * @see #getLogLevel()
+     * @see #isEnabled(LogLevel)
+     * @see #log(LogLevel, Supplier)
+     * @since 2.1.0
+     */
+    public static void setLogLevel(final LogLevel level){
+        if(level == null)
+            throw new NullPointerException("Log level must not be null");
+        Workflow.level = level;
+    }
+
+    /**
+     * Returns the lowest level printed by the supplier and level methods.
+     *
+     * @return lowest level printed
+     *
+     * @see LogLevel
+     * @see #setLogLevel(LogLevel)
+     * @since 2.1.0
+     */
+    public static LogLevel getLogLevel(){
+        return level;
+    }
+
+    /**
+     * Returns if messages of a level are printed by the supplier and level methods.
+     *
+     * @param level level
+     * @return if the level is printed
+     *
+     * @see LogLevel
+     * @see #setLogLevel(LogLevel)
+     * @since 2.1.0
+     */
+    public static boolean isEnabled(final LogLevel level){
+        return level.compareTo(Workflow.level) >= 0;
+    }
+
+    /**
+     * Prints a message at a level. The message is only created if the level is enabled.
+     *
+     * @param level level
+     * @param message message supplier
+     *
+     * @see LogLevel
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void log(final LogLevel level, final Supplier<String> message){
+        if(!isEnabled(level))
+            return;
+        switch(level){
+            case DEBUG:
+                issueCommand("debug", message.get());
+                break;
+            case NOTICE:
+                notice(message.get(), null);
+                break;
+            case WARNING:
+                warning(callerTrace(), message.get());
+                break;
+            case ERROR:
+                error(callerTrace(), message.get());
+                break;
+        }
+    }
+
+    // used by the logging bridges, annotations point to the throwable or the logging call
+    static void log(final LogLevel level, final String message, final StackTraceElement source, final Throwable thrown){
+        final String text = message != null ? message : thrown != null ? thrown.toString() : null;
+        final StackTraceElement[] trace = thrown != null ? thrown.getStackTrace() : null;
+        final boolean hasTrace = trace != null && trace.length > 0;
+        switch(level){
+            case DEBUG:
+                issueCommand("debug", text);
+                break;
+            case NOTICE:
+                notice(text, toProperties(hasTrace ? trace[0] : source));
+                break;
+            case WARNING:
+                if(hasTrace)
+                    warning(trace, text, thrown);
+                else
+                    warning(text, toProperties(source));
+                break;
+            case ERROR:
+                if(hasTrace)
+                    error(trace, text, thrown);
+                else
+                    error(text, toProperties(source));
+                break;
+        }
+    }
+
+    private static AnnotationProperties toProperties(final StackTraceElement element){
+        if(element == null)
+            return null;
+        try{
+            return new AnnotationProperties(null, getFile(element), null, null, element.getLineNumber() > 0 ? element.getLineNumber() : null, null);
+        }catch(final RuntimeException ignored){ // class isn't a resource of this class loader
+            return null;
+        }
+    }
+
+    // drops the Workflow frames from the trace
+    private static StackTraceElement[] callerTrace(){
+        return StackCapture.captureOutside("dev.katsute.jcore.Workflow", stackTraceLimit);
     }
 
     /**
@@ -298,6 +803,19 @@ public abstract class Workflow {
         issueCommand("debug", debug);
     }
 
+    /**
+     * Prints a debug message. The message is only created if {@link LogLevel#DEBUG} is enabled.
+     *
+     * @param debug message supplier
+     *
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void debugLazy(final Supplier<String> debug){
+        if(isEnabled(LogLevel.DEBUG))
+            issueCommand("debug", debug.get());
+    }
+
     /**
      * Prints a notice annotation.
      *
@@ -321,20 +839,36 @@ public abstract class Workflow {
      * @since 1.1.0
      */
     public static void notice(final String notice, final AnnotationProperties properties){
-        issueCommand("notice", properties == null ? null : new LinkedHashMap<String,Object>(){{
-            if(properties.title != null)
-                put("title", properties.title);
-            if(properties.file != null)
-                put("file", properties.file);
-            if(properties.startColumn != null)
-                put("col", properties.startColumn);
-            if(properties.endColumn != null)
-                put("endColumn", properties.endColumn);
-            if(properties.startLine != null)
-                put("line", properties.startLine);
-            if(properties.endLine != null)
-                put("endLine", properties.endLine);
-        }}, notice);
+        if(!accept("notice", properties, notice))
+            return;
+        issueAnnotation("notice", properties, notice);
+    }
+
+    /**
+     * Prints a notice annotation. The message is only created if {@link LogLevel#NOTICE} is enabled.
+     *
+     * @param notice message supplier
+     *
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void noticeLazy(final Supplier<String> notice){
+        noticeLazy(notice, null);
+    }
+
+    /**
+     * Prints a notice annotation. The message is only created if {@link LogLevel#NOTICE} is enabled.
+     *
+     * @param notice message supplier
+     * @param properties optional {@link AnnotationProperties}
+     *
+     * @see AnnotationProperties
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void noticeLazy(final Supplier<String> notice, final AnnotationProperties properties){
+        if(isEnabled(LogLevel.NOTICE))
+            notice(notice.get(), properties);
     }
 
     /**
@@ -386,8 +920,7 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static void warning(final String warning){
-        final Throwable throwable = new Throwable();
-        warning(Arrays.copyOfRange(throwable.getStackTrace(), 1, throwable.getStackTrace().length), warning);
+        warning(StackCapture.capture(1, stackTraceLimit), warning);
     }
 
     /**
@@ -403,20 +936,37 @@ public abstract class Workflow {
      * @since 1.1.0
      */
     public static void warning(final String warning, final AnnotationProperties properties){
-        issueCommand("warning", properties == null ? null : new LinkedHashMap<String,Object>(){{
-            if(properties.title != null)
-                put("title", properties.title);
-            if(properties.file != null)
-                put("file", properties.file);
-            if(properties.startColumn != null)
-                put("col", properties.startColumn);
-            if(properties.endColumn != null)
-                put("endColumn", properties.endColumn);
-            if(properties.startLine != null)
-                put("line", properties.startLine);
-            if(properties.endLine != null)
-                put("endLine", properties.endLine);
-        }}, warning);
+        if(!accept("warning", properties, warning))
+            return;
+        issueAnnotation("warning", properties, warning);
+    }
+
+    /**
+     * Prints a warning message. The message is only created if {@link LogLevel#WARNING} is enabled.
+     *
+     * @param warning message supplier
+     *
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void warningLazy(final Supplier<String> warning){
+        if(isEnabled(LogLevel.WARNING))
+            warning(callerTrace(), warning.get());
+    }
+
+    /**
+     * Prints a warning message. The message is only created if {@link LogLevel#WARNING} is enabled.
+     *
+     * @param warning message supplier
+     * @param properties optional {@link AnnotationProperties}
+     *
+     * @see AnnotationProperties
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void warningLazy(final Supplier<String> warning, final AnnotationProperties properties){
+        if(isEnabled(LogLevel.WARNING))
+            warning(warning.get(), properties);
     }
 
     /**
@@ -430,7 +980,7 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static void warning(final Throwable throwable){
-        warning(throwable.getStackTrace(), throwable.getMessage());
+        warning(throwable.getStackTrace(), throwable.getMessage(), throwable);
     }
 
     /**
@@ -474,11 +1024,18 @@ public abstract class Workflow {
     }
 
     private static void warning(final StackTraceElement[] trace, final String message){
+        warning(trace, message, null);
+    }
+
+    private static void warning(final StackTraceElement[] trace, final String message, final Throwable throwable){
+        final String file = getFile(trace[0]);
+        if(!accept("warning", file, trace[0].getLineNumber(), message))
+            return;
         issueCommand("warning", new LinkedHashMap<String,Object>(){{
-            put("file", getFile(trace[0]));
+            put("file", file);
             put("line", trace[0].getLineNumber());
             put("col", 1);
-        }}, getTraceMessage(trace, message));
+        }}, getTraceMessage(trace, message, throwable));
     }
 
     /**
@@ -493,8 +1050,7 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static void error(final String error){
-        final Throwable throwable = new Throwable();
-        error(Arrays.copyOfRange(throwable.getStackTrace(), 1, throwable.getStackTrace().length), error);
+        error(StackCapture.capture(1, stackTraceLimit), error);
     }
 
     /**
@@ -511,20 +1067,37 @@ public abstract class Workflow {
      * @since 1.1.0
      */
     public static void error(final String error, final AnnotationProperties properties){
-        issueCommand("error", properties == null ? null : new LinkedHashMap<String,Object>(){{
-            if(properties.title != null)
-                put("title", properties.title);
-            if(properties.file != null)
-                put("file", properties.file);
-            if(properties.startColumn != null)
-                put("col", properties.startColumn);
-            if(properties.endColumn != null)
-                put("endColumn", properties.endColumn);
-            if(properties.startLine != null)
-                put("line", properties.startLine);
-            if(properties.endLine != null)
-                put("endLine", properties.endLine);
-        }}, error);
+        if(!accept("error", properties, error))
+            return;
+        issueAnnotation("error", properties, error);
+    }
+
+    /**
+     * Prints an error message. The message is only created if {@link LogLevel#ERROR} is enabled.
+     *
+     * @param error message supplier
+     *
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void errorLazy(final Supplier<String> error){
+        if(isEnabled(LogLevel.ERROR))
+            error(callerTrace(), error.get());
+    }
+
+    /**
+     * Prints an error message. The message is only created if {@link LogLevel#ERROR} is enabled.
+     *
+     * @param error message supplier
+     * @param properties optional {@link AnnotationProperties}
+     *
+     * @see AnnotationProperties
+     * @see #isEnabled(LogLevel)
+     * @since 2.1.0
+     */
+    public static void errorLazy(final Supplier<String> error, final AnnotationProperties properties){
+        if(isEnabled(LogLevel.ERROR))
+            error(error.get(), properties);
     }
 
     /**
@@ -539,7 +1112,7 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static void error(final Throwable throwable){
-        error(throwable.getStackTrace(), throwable.getMessage());
+        error(throwable.getStackTrace(), throwable.getMessage(), throwable);
     }
 
     /**
@@ -585,11 +1158,138 @@ public abstract class Workflow {
     }
 
     private static void error(final StackTraceElement[] trace, final String message){
+        error(trace, message, null);
+    }
+
+    private static void error(final StackTraceElement[] trace, final String message, final Throwable throwable){
+        final String file = getFile(trace[0]);
+        if(!accept("error", file, trace[0].getLineNumber(), message))
+            return;
         issueCommand("error", new LinkedHashMap<String,Object>(){{
-            put("file", getFile(trace[0]));
+            put("file", file);
             put("line", trace[0].getLineNumber());
             put("col", 1);
-        }}, getTraceMessage(trace, message));
+        }}, getTraceMessage(trace, message, throwable));
+    }
+
+    private static volatile StackFrameFilter stackFrameFilter = StackFrameFilter.DEFAULT;
+
+    /**
+     * Sets the filter for frames shown in annotation stack traces. Consecutive hidden frames are collapsed into a single line. By default JUnit, Surefire, Gradle worker, and reflection frames are hidden.
+     *
+     * @param filter stack frame filter, or null to show every frame
+     *
+     * @see #getStackFrameFilter()
+     * @see StackFrameFilter
+     * @since 2.1.0
+     */
+    public static void setStackFrameFilter(final StackFrameFilter filter){
+        stackFrameFilter = filter;
+    }
+
+    /**
+     * Returns the filter for frames shown in annotation stack traces.
+     *
+     * @return stack frame filter, or null if every frame is shown
+     *
+     * @see #setStackFrameFilter(StackFrameFilter)
+     * @since 2.1.0
+     */
+    public static StackFrameFilter getStackFrameFilter(){
+        return stackFrameFilter;
+    }
+
+    private static volatile int stackTraceLimit = Integer.MAX_VALUE;
+
+    /**
+     * Sets the maximum number of stack frames captured for {@link #warning(String)}, {@link #error(String)} and {@link #setFailed(String)}. Frames past the limit are never walked.
+     *
+     * @param limit maximum number of frames
+     * @throws IllegalArgumentException if limit is less than 1
+     *
+     * @see #getStackTraceLimit()
+     * @since 2.1.0
+     */
+    public static void setStackTraceLimit(final int limit){
+        if(limit < 1)
+            throw new IllegalArgumentException("Stack trace limit must be at least 1");
+        stackTraceLimit = limit;
+    }
+
+    /**
+     * Returns the maximum number of stack frames captured for annotations.
+     *
+     * @return stack trace limit
+     *
+     * @see #setStackTraceLimit(int)
+     * @since 2.1.0
+     */
+    public static int getStackTraceLimit(){
+        return stackTraceLimit;
+    }
+
+    private static volatile AnnotationAggregator aggregator = null;
+    private static boolean aggregatorHook = false;
+
+    /**
+     * Toggles annotation aggregation, allowing at most 10 distinct annotations of each level.
+     *
+     * @param enabled whether annotations are aggregated
+     *
+     * @see #setAnnotationAggregation(boolean, int)
+     * @see #printAnnotationSummary()
+     * @since 2.1.0
+     */
+    public static void setAnnotationAggregation(final boolean enabled){
+        setAnnotationAggregation(enabled, 10);
+    }
+
+    /**
+     * Toggles annotation aggregation. When enabled, only the first notice, warning, or error with the same file, line, and message is printed and repeats are counted instead. Once a level has printed the maximum number of distinct annotations, further annotations of that level are only counted. The counts are printed by {@link #printAnnotationSummary()} and when the JVM shuts down.
+     *
+     * @param enabled whether annotations are aggregated
+     * @param limit maximum number of distinct annotations printed for each level
+     *
+     * @see #setAnnotationAggregation(boolean)
+     * @see #printAnnotationSummary()
+     * @since 2.1.0
+     */
+    public static synchronized void setAnnotationAggregation(final boolean enabled, final int limit){
+        if(limit < 0)
+            throw new IllegalArgumentException("Limit must not be negative");
+        final AnnotationAggregator previous = aggregator;
+        aggregator = enabled ? new AnnotationAggregator(limit) : null;
+        if(previous != null)
+            previous.printSummary();
+        if(enabled && !aggregatorHook){
+            aggregatorHook = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                printAnnotationSummary();
+                sink.flush();
+            }, "jcore-annotation-summary"));
+        }
+    }
+
+    /**
+     * Prints how many times in total each suppressed annotation occurred, including the first occurrence, and resets the counts.
+     *
+     * @see #setAnnotationAggregation(boolean)
+     * @see #setAnnotationAggregation(boolean, int)
+     * @since 2.1.0
+     */
+    public static void printAnnotationSummary(){
+        final AnnotationAggregator aggregator = Workflow.aggregator;
+        if(aggregator != null)
+            aggregator.printSummary();
+    }
+
+    private static boolean accept(final String level, final AnnotationProperties properties, final String message){
+        return aggregator == null || accept(level, properties != null ? properties.file : null, properties != null ? properties.startLine : null, message);
+    }
+
+    private static boolean accept(final String level, final String file, final Integer line, final String message){
+        final AnnotationAggregator aggregator = Workflow.aggregator;
+        return aggregator == null || aggregator.accept(level, file, line, message);
     }
 
     /**
@@ -615,14 +1315,34 @@ public abstract class Workflow {
      * @since 1.0.0
      */
     public static void startGroup(final String name, final Runnable runnable){
-        startGroup(name);
+        final GroupBuffer buffer = groupBuffering && GroupBuffer.current() == null ? GroupBuffer.open() : null;
         try{
-            runnable.run();
+            startGroup(name);
+            try{
+                runnable.run();
+            }finally{
+                endGroup();
+            }
         }finally{
-            endGroup();
+            if(buffer != null)
+                buffer.close(sink);
         }
     }
 
+    private static volatile boolean groupBuffering = false;
+
+    /**
+     * Toggles group buffering. When enabled, everything a thread writes inside {@link #startGroup(String, Runnable)} is held until the group ends and then replayed through the {@link CommandSink} one group at a time, so output from other buffered groups can't end up inside the group. Large groups are moved to a temporary file instead of being held in memory.
+     *
+     * @param enabled whether group output is buffered
+     *
+     * @see #startGroup(String, Runnable)
+     * @since 2.1.0
+     */
+    public static void setGroupBuffering(final boolean enabled){
+        groupBuffering = enabled;
+    }
+
     /**
      * Ends the currently opened group.
      *
@@ -632,6 +1352,7 @@ public abstract class Workflow {
     @SuppressWarnings("SpellCheckingInspection")
     public static void endGroup(){
         issueCommand("endgroup");
+        sink().flush();
     }
 
     // ----- state ---------------
@@ -651,6 +1372,57 @@ public abstract class Workflow {
         }}, value);
     }
 
+    /**
+     * Saves a state from a reader. The value is read ahead, in memory or in a temporary file if it is large, so a delimiter that does not appear in it can be picked before the state file is written.
+     *
+     * @param name name of state
+     * @param value state value
+     * @throws UncheckedIOException if the value could not be read or written
+     *
+     * @see #saveState(String, Object)
+     * @see #saveStateFrom(String, InputStream)
+     * @see #saveStateFrom(String, Path)
+     * @see #getState(String)
+     * @since 2.1.0
+     */
+    public static void saveStateFrom(final String name, final Reader value){
+        streamFileCommand("GITHUB_STATE", "save-state", name, value);
+    }
+
+    /**
+     * Saves a state from a UTF-8 input stream. The value is read ahead, in memory or in a temporary file if it is large, so a delimiter that does not appear in it can be picked before the state file is written.
+     *
+     * @param name name of state
+     * @param value state value
+     * @throws UncheckedIOException if the value could not be read or written
+     *
+     * @see #saveState(String, Object)
+     * @see #saveStateFrom(String, Reader)
+     * @see #saveStateFrom(String, Path)
+     * @see #getState(String)
+     * @since 2.1.0
+     */
+    public static void saveStateFrom(final String name, final InputStream value){
+        streamFileCommand("GITHUB_STATE", "save-state", name, value);
+    }
+
+    /**
+     * Saves a state from the contents of a UTF-8 file. The file is scanned for a delimiter that does not appear in it and then streamed to the state file without being held in memory, so it must not change until this method returns.
+     *
+     * @param name name of state
+     * @param value file to read the state value from
+     * @throws UncheckedIOException if the value could not be read or written
+     *
+     * @see #saveState(String, Object)
+     * @see #saveStateFrom(String, Reader)
+     * @see #saveStateFrom(String, InputStream)
+     * @see #getState(String)
+     * @since 2.1.0
+     */
+    public static void saveStateFrom(final String name, final Path value){
+        streamFileCommand("GITHUB_STATE", "save-state", name, value);
+    }
+
     /**
      * Retrieves a state.
      *
@@ -718,42 +1490,20 @@ public abstract class Workflow {
 
     // ----- test integration ---------------
 
-    private static final Class<AssertionError> assertion = AssertionError.class;
-    private static final Class<?> assumption;
-
-    static{
-        Class<?> class_;
-        try{
-            //noinspection SpellCheckingInspection
-            class_ = Class.forName("org.opentest4j.IncompleteExecutionException");
-        }catch(final Throwable ignored){
-            class_ = null;
-        }
-        assumption = class_;
-    }
-
     /**
      * Annotates a test result. If an exception is thrown or an assertion fails, an error annotation will be printed. If an assumption fails a warning annotation will be printed.
      *
      * @param runnable {@link ThrowingRunnable}
      *
      * @see ThrowingRunnable
+     * @see ExceptionClassifier
      * @since 2.0.0
      */
-    @SuppressWarnings("SpellCheckingInspection")
     public static void annotateTest(final ThrowingRunnable runnable){
         try{
             runnable.run();
         }catch(final Throwable e){
-            final Class<?> eClass    = e.getClass();
-            final String eClassName  = eClass.getName();
-
-            final boolean assumption = Workflow.assumption != null
-                                       ? Workflow.assumption.isAssignableFrom(eClass)
-                                       : eClassName.equals("org.opentest4j.TestAbortedException") ||
-                                         eClassName.equals("org.opentest4j.TestSkippedException") ||
-                                         eClassName.equals("org.opentest4j.IncompleteExecutionException");
-            final boolean assertion  = Workflow.assertion.isAssignableFrom(eClass);
+            final ExceptionClassifier.Classification kind = TestFailures.classify(e);
 
             int index = 0;
             for(final StackTraceElement element : e.getStackTrace())
@@ -762,21 +1512,71 @@ public abstract class Workflow {
                 else
                     index++;
 
-            final StackTraceElement[] trace = assumption || assertion ? Arrays.copyOfRange(e.getStackTrace(), index - 1, e.getStackTrace().length) : e.getStackTrace();
+            final StackTraceElement[] trace = kind != ExceptionClassifier.Classification.ERROR && index > 0 ? Arrays.copyOfRange(e.getStackTrace(), index - 1, e.getStackTrace().length) : e.getStackTrace();
 
-            if(assumption)
-                warning(trace, e.getMessage());
-            else
-                error(trace, e.getMessage());
+            annotateFailure(kind, trace, e);
             rethrow(e);
         }
     }
 
+    // used by the test integrations, assumptions are warnings and everything else is an error
+    static void annotateFailure(final ExceptionClassifier.Classification kind, final StackTraceElement[] trace, final Throwable e){
+        if(trace.length == 0) // stack trace wasn't written
+            if(kind == ExceptionClassifier.Classification.ASSUMPTION)
+                warning(String.valueOf(e), (AnnotationProperties) null);
+            else
+                error(String.valueOf(e), (AnnotationProperties) null);
+        else if(kind == ExceptionClassifier.Classification.ASSUMPTION)
+            warning(trace, e.getMessage(), e);
+        else
+            error(trace, e.getMessage(), e);
+    }
+
     @SuppressWarnings("unchecked")
     private static <T extends Throwable> void rethrow(final Throwable e) throws T{
         throw (T) e;
     }
 
+    // ----- output ---------------
+
+    private static volatile CommandSink sink = StandardOutputSink.INSTANCE;
+
+    /**
+     * Sets where workflow commands are written to. By default commands are written directly to {@link System#out}.
+     *
+     * @param sink command sink, or null to write directly to {@link System#out}
+     *
+     * @see CommandSink
+     * @see BufferedCommandSink
+     * @see #getCommandSink()
+     * @since 2.1.0
+     */
+    public static void setCommandSink(final CommandSink sink){
+        final CommandSink previous = Workflow.sink;
+        Workflow.sink = sink != null ? sink : StandardOutputSink.INSTANCE;
+        if(previous != Workflow.sink)
+            previous.flush();
+    }
+
+    /**
+     * Returns where workflow commands are written to.
+     *
+     * @return command sink
+     *
+     * @see CommandSink
+     * @see #setCommandSink(CommandSink)
+     * @since 2.1.0
+     */
+    public static CommandSink getCommandSink(){
+        return sink;
+    }
+
+    // output on a thread with an open buffered group goes to that group
+    private static CommandSink sink(){
+        final GroupBuffer buffer = GroupBuffer.current();
+        return buffer != null ? buffer : sink;
+    }
+
     // ----- CI ---------------
 
     /**
@@ -792,15 +1592,31 @@ public abstract class Workflow {
 
     // ----- utility ---------------
 
-    private static final String workspace   = System.getenv("GITHUB_WORKSPACE");
-    private static final String repository  = System.getenv("GITHUB_REPOSITORY");
-    private static final String SHA         = System.getenv("GITHUB_SHA");
+    private static final String workspace = System.getenv("GITHUB_WORKSPACE");
 
     private static final boolean CI = "true".equals(System.getenv("CI"));
 
-    @SuppressWarnings("ConstantConditions")
+    // class name to repository path, the same few classes are annotated over and over
+    private static final Map<String,String> files = new ConcurrentHashMap<>();
+
     private static String getFile(final StackTraceElement traceElement){
-        return Workflow.class.getClassLoader().getResource(traceElement.getClassName().replace('.', '/') + ".class")
+        final String className = traceElement.getClassName();
+        final String file = files.get(className);
+        if(file != null)
+            return file;
+        // resolved outside of computeIfAbsent, the first lookup can walk the whole workspace
+        final String resolved = resolveFile(className);
+        final String raced = files.putIfAbsent(className, resolved);
+        return raced != null ? raced : resolved;
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private static String resolveFile(final String className){
+        final String indexed = SourceIndex.find(className);
+        if(indexed != null)
+            return indexed;
+        // not in the workspace index, guess from the class file location
+        return Workflow.class.getClassLoader().getResource(className.replace('.', '/') + ".class")
             .getPath()
             .replaceFirst(workspace != null ? workspace : "", "")
             .replaceFirst("^/", "")
@@ -810,30 +1626,167 @@ public abstract class Workflow {
             .replaceAll("\\$.+$", ".java");
     }
 
-    private static String getTraceMessage(final StackTraceElement[] stacktrace, final String message){
+    // GitHub keeps at most 64 KiB of an annotation message
+    private static final int maxAnnotationBytes = 64 * 1024;
+
+    private static CharSequence getTraceMessage(final StackTraceElement[] stacktrace, final String message, final Throwable throwable){
         final StackTraceElement cause = stacktrace[0];
-        final StringBuilder output = new StringBuilder();
+        final BoundedMessage output = new BoundedMessage(maxAnnotationBytes);
         if(CI)
-            output
-                .append("https://github.com/")
-                .append(repository).append('/').append("blob").append('/')
-                .append(SHA).append('/');
+            output.append(Context.getBlobUrl());
         output
             .append(getFile(cause))
             .append("#L").append(cause.getLineNumber());
         if(message != null)
             output.append(" : ").append(message);
-        output.append('\n');
-
-        boolean first = true;
-        for(final StackTraceElement stackTraceElement : stacktrace){
-            if(!first)
-                output.append("\n\t").append("at").append(' ');
-            first = false;
-            output.append(stackTraceElement.toString());
+        output.append("\n");
+
+        output.append(cause);
+        final StackFrameFilter filter = stackFrameFilter;
+        appendFrames(output, stacktrace, 1, stacktrace.length, "", filter);
+
+        if(throwable != null){
+            final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            seen.add(throwable);
+            final StackTraceElement[] enclosing = throwable.getStackTrace();
+            for(final Throwable suppressed : throwable.getSuppressed())
+                appendEnclosed(output, suppressed, enclosing, "Suppressed: ", "\t", seen, filter);
+            if(throwable.getCause() != null)
+                appendEnclosed(output, throwable.getCause(), enclosing, "Caused by: ", "", seen, filter);
+        }
+
+        return output.toCharSequence();
+    }
+
+    // same layout as Throwable#printStackTrace
+    private static void appendEnclosed(final BoundedMessage output, final Throwable throwable, final StackTraceElement[] enclosing, final String caption, final String prefix, final Set<Throwable> seen, final StackFrameFilter filter){
+        if(output.isFull())
+            return;
+        if(!seen.add(throwable)){
+            output.append("\n").append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(throwable).append("]");
+            return;
         }
 
-        return output.toString();
+        final StackTraceElement[] trace = throwable.getStackTrace();
+        int m = trace.length - 1, n = enclosing.length - 1;
+        while(m >= 0 && n >= 0 && trace[m].equals(enclosing[n])){
+            m--;
+            n--;
+        }
+        final int common = trace.length - 1 - m;
+
+        output.append("\n").append(prefix).append(caption).append(throwable);
+        if(m >= 0)
+            output.append("\n").append(prefix).append("\tat ").append(trace[0]);
+        appendFrames(output, trace, 1, m + 1, prefix, filter);
+        if(common != 0)
+            output.append("\n").append(prefix).append("\t... ").append(common).append(" more");
+
+        for(final Throwable suppressed : throwable.getSuppressed())
+            appendEnclosed(output, suppressed, trace, "Suppressed: ", prefix + "\t", seen, filter);
+        if(throwable.getCause() != null)
+            appendEnclosed(output, throwable.getCause(), trace, "Caused by: ", prefix, seen, filter);
+    }
+
+    private static void appendFrames(final BoundedMessage output, final StackTraceElement[] trace, final int from, final int to, final String prefix, final StackFrameFilter filter){
+        int omitted = 0;
+        for(int i = from; i < to && !output.isFull(); i++){
+            if(filter != null && !filter.accept(trace[i])){
+                omitted++;
+                continue;
+            }
+            appendOmitted(output, omitted, prefix);
+            omitted = 0;
+            output.append("\n").append(prefix).append("\tat ").append(trace[i]);
+        }
+        appendOmitted(output, omitted, prefix);
+    }
+
+    private static void appendOmitted(final BoundedMessage output, final int omitted, final String prefix){
+        if(omitted > 0)
+            output.append("\n").append(prefix).append("\t... ").append(omitted).append(omitted == 1 ? " frame" : " frames").append(" omitted");
+    }
+
+    // ----- file command ---------------
+
+    private static void streamFileCommand(final String variable, final String command, final String name, final Reader value){
+        final FileCommand file = FileCommand.get(variable);
+        if(file != null)
+            file.appendKeyValue(name, value);
+        else{ // runner without file commands, value has to be read into a command
+            final StringBuilder builder = new StringBuilder();
+            final char[] buffer = new char[8192];
+            try{
+                int read;
+                while((read = value.read(buffer)) != -1)
+                    builder.append(buffer, 0, read);
+            }catch(final IOException e){
+                throw new UncheckedIOException(e);
+            }
+            issueCommand(command, new LinkedHashMap<String,Object>(){{
+                put("name", name);
+            }}, builder);
+        }
+    }
+
+    private static void streamFileCommand(final String variable, final String command, final String name, final InputStream value){
+        final FileCommand file = FileCommand.get(variable);
+        if(file != null)
+            file.appendKeyValue(name, value);
+        else
+            streamFileCommand(variable, command, name, new InputStreamReader(value, StandardCharsets.UTF_8));
+    }
+
+    private static void streamFileCommand(final String variable, final String command, final String name, final Path value){
+        final FileCommand file = FileCommand.get(variable);
+        if(file != null)
+            file.appendKeyValue(name, value);
+        else
+            try(final InputStream in = Files.newInputStream(value)){
+                streamFileCommand(variable, command, name, in);
+            }catch(final IOException e){
+                throw new UncheckedIOException(e);
+            }
+    }
+
+    // ----- prepared command ---------------
+
+    /**
+     * Prepares a command so that it can be issued repeatedly with different messages. The command and its properties are encoded once; issuing the prepared command only encodes the message.
+     *
+     * @param command command, for example {@code warning}
+     * @param properties optional {@link AnnotationProperties}
+     * @return prepared command
+     *
+     * @see PreparedCommand
+     * @see AnnotationProperties
+     * @since 2.1.0
+     */
+    public static PreparedCommand prepare(final String command, final AnnotationProperties properties){
+        final StringBuilder prefix = new StringBuilder()
+            .append(Workflow.commandString)
+            .append(command != null ? command : "missing.command");
+        appendProperties(prefix, properties);
+        prefix.append(Workflow.commandString);
+        return new PreparedCommand(command, properties, prefix.toString());
+    }
+
+    static void issueCommand(final PreparedCommand command, final Object message){
+        // evaluate toString once and before the shared buffer is taken
+        final CharSequence value = message != null ? toCommandValue(message) : null;
+        if(command.annotation && aggregator != null && !accept(command.command, command.file, command.line, value != null ? value.toString() : null))
+            return;
+        final StringBuilder commandString = acquire();
+        try{
+            commandString.append(command.prefix);
+            if(value != null)
+                escapeData(commandString, value);
+            sink().write(commandString);
+        }finally{
+            release(commandString);
+        }
+        if(command.flush)
+            sink().flush();
     }
 
     // ----- command ---------------
@@ -847,56 +1800,150 @@ public abstract class Workflow {
     }
 
     private static void issueCommand(final String command, final Map<String,Object> properties, final Object message){
-        System.out.println(toCommand(command, properties, message));
+        final CharSequence value = message != null ? toCommandValue(message) : null;
+        final StringBuilder commandString = acquire();
+        try{
+            sink().write(toCommand(commandString, command, properties, value));
+        }finally{
+            release(commandString);
+        }
+    }
+
+    private static void issueAnnotation(final String command, final AnnotationProperties properties, final Object message){
+        final CharSequence value = message != null ? toCommandValue(message) : null;
+        final StringBuilder commandString = acquire();
+        try{
+            commandString
+                .append(Workflow.commandString)
+                .append(command != null ? command : "missing.command");
+            appendProperties(commandString, properties);
+            commandString.append(Workflow.commandString);
+            if(value != null)
+                escapeData(commandString, value);
+            sink().write(commandString);
+        }finally{
+            release(commandString);
+        }
+    }
+
+    private static StringBuilder acquire(){
+        final StringBuilder commandString = commandBuffer.get();
+        // a non-empty buffer means a toString further up this thread's stack is issuing a command of its own
+        return commandString.length() == 0 ? commandString : new StringBuilder(256);
+    }
+
+    private static void release(final StringBuilder commandString){
+        if(commandString != commandBuffer.get())
+            return;
+        commandString.setLength(0);
+        // don't let a single large trace pin memory to the thread
+        if(commandString.capacity() > maxRetainedCapacity)
+            commandBuffer.remove();
     }
 
     private static final String commandString = "::";
 
-    private static String toCommand(final String command, final Map<String,Object> properties, final Object message){
-        final StringBuilder commandString = new StringBuilder(Workflow.commandString + (command != null ? command : "missing.command"));
+    private static final int maxRetainedCapacity = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> commandBuffer = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private static StringBuilder toCommand(final StringBuilder commandString, final String command, final Map<String,Object> properties, final CharSequence message){
+        commandString
+            .append(Workflow.commandString)
+            .append(command != null ? command : "missing.command");
 
         if(properties != null && !properties.isEmpty()){
             commandString.append(' ');
             boolean first = true;
-            for(final String key : properties.keySet()){
-                final Object value = properties.get(key);
+            for(final Map.Entry<String,Object> entry : properties.entrySet()){
+                final Object value = entry.getValue();
                 if(value != null){
                     if(first)
                         first = false;
                     else
                         commandString.append(',');
-                    commandString
-                        .append(key)
-                        .append('=')
-                        .append(
-                            toCommandValue(value)
-                                .replaceAll("%", "%25")
-                                .replaceAll("\\r", "%0D")
-                                .replaceAll("\\n", "%0A")
-                                .replaceAll(":", "%3A")
-                                .replaceAll(",", "%2C")
-                        );
+                    commandString.append(entry.getKey()).append('=');
+                    escapeProperty(commandString, toCommandValue(value));
                 }
             }
         }
         commandString.append(Workflow.commandString);
-        commandString.append(
-            message != null
-                ? toCommandValue(message)
-                    .replaceAll("%", "%25")
-                    .replaceAll("\\r", "%0D")
-                    .replaceAll("\\n", "%0A")
-                : ""
-        );
+        if(message != null)
+            escapeData(commandString, message);
+
+        return commandString;
+    }
+
+    private static void appendProperties(final StringBuilder commandString, final AnnotationProperties properties){
+        if(properties == null)
+            return;
+        final int start = commandString.length();
+        appendProperty(commandString, start, "title", properties.title);
+        appendProperty(commandString, start, "file", properties.file);
+        appendProperty(commandString, start, "col", properties.startColumn);
+        appendProperty(commandString, start, "endColumn", properties.endColumn);
+        appendProperty(commandString, start, "line", properties.startLine);
+        appendProperty(commandString, start, "endLine", properties.endLine);
+    }
+
+    private static void appendProperty(final StringBuilder commandString, final int start, final String key, final Object value){
+        if(value == null)
+            return;
+        commandString.append(commandString.length() == start ? ' ' : ',').append(key).append('=');
+        escapeProperty(commandString, toCommandValue(value));
+    }
+
+    private static void escapeData(final StringBuilder out, final CharSequence value){
+        final int len = value.length();
+        for(int i = 0; i < len; i++){
+            final char ch = value.charAt(i);
+            switch(ch){
+                case '%':
+                    out.append("%25");
+                    break;
+                case '\r':
+                    out.append("%0D");
+                    break;
+                case '\n':
+                    out.append("%0A");
+                    break;
+                default:
+                    out.append(ch);
+            }
+        }
+    }
 
-        return commandString.toString();
+    private static void escapeProperty(final StringBuilder out, final CharSequence value){
+        final int len = value.length();
+        for(int i = 0; i < len; i++){
+            final char ch = value.charAt(i);
+            switch(ch){
+                case '%':
+                    out.append("%25");
+                    break;
+                case '\r':
+                    out.append("%0D");
+                    break;
+                case '\n':
+                    out.append("%0A");
+                    break;
+                case ':':
+                    out.append("%3A");
+                    break;
+                case ',':
+                    out.append("%2C");
+                    break;
+                default:
+                    out.append(ch);
+            }
+        }
     }
 
-    private static String toCommandValue(final Object obj){
+    private static CharSequence toCommandValue(final Object obj){
         if(obj == null)
             return "";
-        else if(obj instanceof String)
-            return (String) obj;
+        else if(obj instanceof CharSequence)
+            return (CharSequence) obj;
         else
             return obj.toString();
     }
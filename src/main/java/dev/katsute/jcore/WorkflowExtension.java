@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import org.junit.jupiter.api.extension.*;
+
+/**
+ * JUnit Jupiter extension that annotates test and lifecycle method failures the same way as {@link Workflow#annotateTest(ThrowingRunnable)}. Failed assumptions are printed as warnings and everything else as errors; the exception is always rethrown.
+ * <br>
+ * The extension is registered through {@code META-INF/services}, which JUnit only reads when extension autodetection is enabled with {@code junit.jupiter.extensions.autodetection.enabled=true}. It can also be registered with {@code @ExtendWith(WorkflowExtension.class)}. Passing tests never reach the extension.
+ *
+ * @see Workflow#annotateTest(ThrowingRunnable)
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public final class WorkflowExtension implements TestExecutionExceptionHandler, LifecycleMethodExecutionExceptionHandler {
+
+    /**
+     * Creates the extension.
+     *
+     * @since 2.1.0
+     */
+    public WorkflowExtension(){ }
+
+    @Override
+    public final void handleTestExecutionException(final ExtensionContext context, final Throwable throwable) throws Throwable{
+        throw annotate(throwable);
+    }
+
+    @Override
+    public final void handleBeforeAllMethodExecutionException(final ExtensionContext context, final Throwable throwable) throws Throwable{
+        throw annotate(throwable);
+    }
+
+    @Override
+    public final void handleBeforeEachMethodExecutionException(final ExtensionContext context, final Throwable throwable) throws Throwable{
+        throw annotate(throwable);
+    }
+
+    @Override
+    public final void handleAfterEachMethodExecutionException(final ExtensionContext context, final Throwable throwable) throws Throwable{
+        throw annotate(throwable);
+    }
+
+    @Override
+    public final void handleAfterAllMethodExecutionException(final ExtensionContext context, final Throwable throwable) throws Throwable{
+        throw annotate(throwable);
+    }
+
+    private static Throwable annotate(final Throwable throwable){
+        final ExceptionClassifier.Classification kind = TestFailures.classify(throwable);
+        Workflow.annotateFailure(
+            kind,
+            kind != ExceptionClassifier.Classification.ERROR ? TestFailures.trimLibraryFrames(throwable.getStackTrace()) : throwable.getStackTrace(),
+            throwable
+        );
+        return throwable;
+    }
+
+    @Override
+    public String toString(){
+        return "WorkflowExtension{}";
+    }
+
+}
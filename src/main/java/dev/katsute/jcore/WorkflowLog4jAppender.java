@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.*;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Log4j 2 appender that prints log events as workflow commands. Events are converted on a background thread, so logging never waits on the output. Requires {@code log4j-core}.
+ * <br>
+ * Fatal and error events are printed as errors, warn as warnings, info as notices, and anything lower as debug messages. Annotations point to the attached throwable, or to the logging call if location information is included.
+ * <pre>{@code
+ * <Appenders>
+ *     <Workflow name="workflow" />
+ * </Appenders>
+ * }</pre>
+ *
+ * @see LogLevel
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+@Plugin(name = "Workflow", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE, printObject = true)
+public final class WorkflowLog4jAppender extends AbstractAppender {
+
+    private WorkflowLog4jAppender(final String name, final Filter filter){
+        super(name, filter, null, true, Property.EMPTY_ARRAY);
+    }
+
+    /**
+     * Creates an appender.
+     *
+     * @param name appender name
+     * @param filter optional filter
+     * @return appender
+     *
+     * @since 2.1.0
+     */
+    @PluginFactory
+    public static WorkflowLog4jAppender createAppender(
+        @PluginAttribute("name") final String name,
+        @PluginElement("Filter") final Filter filter
+    ){
+        return new WorkflowLog4jAppender(name != null ? name : "Workflow", filter);
+    }
+
+    @Override
+    public final void append(final LogEvent event){
+        final LogLevel level = toLogLevel(event.getLevel());
+        if(!Workflow.isEnabled(level))
+            return;
+        // events may be reused after this returns, only immutable values are passed on
+        LogBridge.submit(
+            level,
+            event.getMessage() != null ? event.getMessage().getFormattedMessage() : null,
+            event.isIncludeLocation() ? event.getSource() : null,
+            event.getThrown()
+        );
+    }
+
+    @Override
+    public final boolean stop(final long timeout, final TimeUnit timeUnit){
+        LogBridge.flush();
+        return super.stop(timeout, timeUnit);
+    }
+
+    private static LogLevel toLogLevel(final Level level){
+        if(level.isMoreSpecificThan(Level.ERROR))
+            return LogLevel.ERROR;
+        else if(level.isMoreSpecificThan(Level.WARN))
+            return LogLevel.WARNING;
+        else if(level.isMoreSpecificThan(Level.INFO))
+            return LogLevel.NOTICE;
+        else
+            return LogLevel.DEBUG;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.logging.*;
+
+/**
+ * A {@link java.util.logging} handler that prints log records as workflow commands. Records are converted on a background thread, so logging never waits on the output.
+ * <br>
+ * {@link Level#SEVERE} is printed as an error, {@link Level#WARNING} as a warning, {@link Level#INFO} as a notice, and anything lower as a debug message. Annotations point to the attached throwable, or to the logging class if there is none.
+ *
+ * @see LogLevel
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public class WorkflowLogHandler extends Handler {
+
+    private final Formatter formatter = new SimpleFormatter();
+
+    /**
+     * Creates a handler.
+     *
+     * @since 2.1.0
+     */
+    public WorkflowLogHandler(){ }
+
+    @Override
+    public void publish(final LogRecord record){
+        if(record == null || !isLoggable(record))
+            return;
+        final LogLevel level = toLogLevel(record.getLevel());
+        if(!Workflow.isEnabled(level))
+            return;
+
+        final String className = record.getSourceClassName();
+        LogBridge.submit(
+            level,
+            (getFormatter() != null ? getFormatter() : formatter).formatMessage(record),
+            className != null ? new StackTraceElement(className, record.getSourceMethodName() != null ? record.getSourceMethodName() : "", null, -1) : null,
+            record.getThrown()
+        );
+    }
+
+    /**
+     * Waits until every published record is printed.
+     *
+     * @since 2.1.0
+     */
+    @Override
+    public void flush(){
+        LogBridge.flush();
+    }
+
+    @Override
+    public void close(){
+        flush();
+    }
+
+    private static LogLevel toLogLevel(final Level level){
+        final int value = level.intValue();
+        if(value >= Level.SEVERE.intValue())
+            return LogLevel.ERROR;
+        else if(value >= Level.WARNING.intValue())
+            return LogLevel.WARNING;
+        else if(value >= Level.INFO.intValue())
+            return LogLevel.NOTICE;
+        else
+            return LogLevel.DEBUG;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import ch.qos.logback.core.AppenderBase;
+
+/**
+ * A Logback appender that prints log events as workflow commands. Events are converted on a background thread, so logging never waits on the output. Requires {@code logback-classic}.
+ * <br>
+ * Error events are printed as errors, warn as warnings, info as notices, and anything lower as debug messages. Annotations point to the attached throwable, or to the logging call if caller data is included.
+ * <pre>{@code
+ * <appender name="workflow" class="dev.katsute.jcore.WorkflowLogbackAppender">
+ *     <includeCallerData>true</includeCallerData>
+ * </appender>
+ * }</pre>
+ *
+ * @see LogLevel
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public class WorkflowLogbackAppender extends AppenderBase<ILoggingEvent> {
+
+    private boolean includeCallerData = false;
+
+    /**
+     * Creates an appender.
+     *
+     * @since 2.1.0
+     */
+    public WorkflowLogbackAppender(){ }
+
+    /**
+     * Sets whether annotations without a throwable point to the logging call. Finding the caller is expensive, so this is off by default.
+     *
+     * @param includeCallerData whether to include caller data
+     *
+     * @since 2.1.0
+     */
+    public final void setIncludeCallerData(final boolean includeCallerData){
+        this.includeCallerData = includeCallerData;
+    }
+
+    @Override
+    protected void append(final ILoggingEvent event){
+        final LogLevel level = toLogLevel(event.getLevel());
+        if(!Workflow.isEnabled(level))
+            return;
+
+        final StackTraceElement[] caller = includeCallerData ? event.getCallerData() : null;
+        LogBridge.submit(
+            level,
+            event.getFormattedMessage(),
+            caller != null && caller.length > 0 ? caller[0] : null,
+            event.getThrowableProxy() instanceof ThrowableProxy ? ((ThrowableProxy) event.getThrowableProxy()).getThrowable() : null
+        );
+    }
+
+    @Override
+    public void stop(){
+        LogBridge.flush();
+        super.stop();
+    }
+
+    private static LogLevel toLogLevel(final Level level){
+        if(level.isGreaterOrEqual(Level.ERROR))
+            return LogLevel.ERROR;
+        else if(level.isGreaterOrEqual(Level.WARN))
+            return LogLevel.WARNING;
+        else if(level.isGreaterOrEqual(Level.INFO))
+            return LogLevel.NOTICE;
+        else
+            return LogLevel.DEBUG;
+    }
+
+}
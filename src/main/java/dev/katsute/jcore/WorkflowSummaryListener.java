@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.launcher.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JUnit Platform listener that writes the test results to the job summary: pass, fail, and skip counts, the slowest tests, and the failures. Failures are classified the same way as {@link Workflow#annotateTest(ThrowingRunnable)}.
+ * <br>
+ * The listener is registered through {@code META-INF/services} and does nothing unless the configuration parameter {@value #ENABLED} is {@code true} and the runner supports the job summary. The number of slowest tests listed is set with {@value #SLOWEST}, 10 by default.
+ *
+ * @see Summary
+ * @author Katsute
+ * @since 2.1.0
+ * @version 2.1.0
+ */
+public final class WorkflowSummaryListener implements TestExecutionListener {
+
+    /**
+     * Configuration parameter that enables the summary.
+     *
+     * @since 2.1.0
+     */
+    public static final String ENABLED = "jcore.summary.enabled";
+
+    /**
+     * Configuration parameter for the number of slowest tests to list.
+     *
+     * @since 2.1.0
+     */
+    public static final String SLOWEST = "jcore.summary.slowest";
+
+    private static final int maxFailures = 100;
+
+    private volatile boolean enabled = false;
+    private volatile int slowest = 10;
+    private volatile TestPlan plan;
+    private volatile long planStarted;
+
+    // hot path only touches concurrent structures, results are put together once the plan finishes
+    private final Map<String,Long> started = new ConcurrentHashMap<>();
+    private final Queue<Timing> timings = new ConcurrentLinkedQueue<>();
+    // only the first failures are kept, the rest are counted
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    private final LongAdder passed  = new LongAdder();
+    private final LongAdder failed  = new LongAdder();
+    private final LongAdder errored = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Creates the listener.
+     *
+     * @since 2.1.0
+     */
+    public WorkflowSummaryListener(){ }
+
+    @Override
+    public final void testPlanExecutionStarted(final TestPlan testPlan){
+        enabled = testPlan.getConfigurationParameters().getBoolean(ENABLED).orElse(false) && Summary.isAvailable();
+        if(!enabled)
+            return;
+        plan = testPlan;
+        slowest = testPlan.getConfigurationParameters().get(SLOWEST, Integer::parseInt).orElse(10);
+        planStarted = System.nanoTime();
+    }
+
+    @Override
+    public final void executionStarted(final TestIdentifier testIdentifier){
+        if(enabled && testIdentifier.isTest())
+            started.put(testIdentifier.getUniqueId(), System.nanoTime());
+    }
+
+    @Override
+    public final void executionSkipped(final TestIdentifier testIdentifier, final String reason){
+        if(!enabled)
+            return;
+        if(testIdentifier.isTest())
+            skipped.increment();
+        else // every test in the container is skipped
+            for(final TestIdentifier descendant : plan.getDescendants(testIdentifier))
+                if(descendant.isTest())
+                    skipped.increment();
+    }
+
+    @Override
+    public final void executionFinished(final TestIdentifier testIdentifier, final TestExecutionResult result){
+        if(!enabled)
+            return;
+        final boolean test = testIdentifier.isTest();
+        if(test){
+            final Long start = started.remove(testIdentifier.getUniqueId());
+            if(start != null)
+                timings.add(new Timing(testIdentifier, System.nanoTime() - start));
+        }
+        switch(result.getStatus()){
+            case SUCCESSFUL:
+                if(test)
+                    passed.increment();
+                break;
+            case ABORTED:
+                if(test)
+                    aborted.increment();
+                break;
+            case FAILED:
+                final Throwable throwable = result.getThrowable().orElse(null);
+                final ExceptionClassifier.Classification kind = throwable != null ? TestFailures.classify(throwable) : ExceptionClassifier.Classification.ERROR;
+                if(test)
+                    (kind == ExceptionClassifier.Classification.ASSERTION ? failed : errored).increment();
+                if(failureCount.getAndIncrement() < maxFailures)
+                    failures.add(new Failure(testIdentifier, kind, throwable != null ? throwable.toString() : ""));
+                break;
+        }
+    }
+
+    @Override
+    public final void testPlanExecutionFinished(final TestPlan testPlan){
+        if(!enabled)
+            return;
+        enabled = false;
+        final long elapsed = System.nanoTime() - planStarted;
+
+        Summary.addHeading("Test Results", 3);
+        try(final Summary.Table table = Summary.addTable("Passed", "Failed", "Errors", "Aborted", "Skipped", "Time")){
+            table.addRow(passed.sum(), failed.sum(), errored.sum(), aborted.sum(), skipped.sum(), time(elapsed));
+        }
+
+        // only the slowest are kept, the heap's head is the fastest of them
+        final PriorityQueue<Timing> slowest = new PriorityQueue<>(Math.max(1, this.slowest), Comparator.comparingLong(t -> t.nanos));
+        if(this.slowest > 0)
+            for(final Timing timing : timings){
+                if(slowest.size() < this.slowest)
+                    slowest.add(timing);
+                else if(timing.nanos > slowest.peek().nanos){
+                    slowest.poll();
+                    slowest.add(timing);
+                }
+            }
+        if(!slowest.isEmpty()){
+            final List<Timing> sorted = new ArrayList<>(slowest);
+            sorted.sort(Comparator.comparingLong((Timing t) -> t.nanos).reversed());
+            Summary.addHeading("Slowest Tests", 4);
+            try(final Summary.Table table = Summary.addTable("Test", "Time")){
+                for(final Timing timing : sorted)
+                    table.addRow(name(testPlan, timing.identifier), time(timing.nanos));
+            }
+        }
+
+        if(!failures.isEmpty()){
+            Summary.addHeading("Failures", 4);
+            try(final Summary.Table table = Summary.addTable("Test", "Type", "Message")){
+                for(final Failure failure : failures)
+                    table.addRow(
+                        name(testPlan, failure.identifier),
+                        failure.kind == ExceptionClassifier.Classification.ASSERTION ? "assertion" : failure.kind == ExceptionClassifier.Classification.ASSUMPTION ? "assumption" : "error",
+                        failure.message
+                    );
+            }
+            final long more = failureCount.get() - maxFailures;
+            if(more > 0)
+                Summary.addParagraph("... and " + more + " more");
+        }
+        Summary.flush();
+    }
+
+    private static String name(final TestPlan plan, final TestIdentifier identifier){
+        final Optional<TestIdentifier> parent = plan.getParent(identifier);
+        return parent.isPresent() && parent.get().getSource().isPresent()
+            ? parent.get().getDisplayName() + " > " + identifier.getDisplayName()
+            : identifier.getDisplayName();
+    }
+
+    private static String time(final long nanos){
+        return String.format(Locale.ROOT, "%.3f s", nanos / 1e9);
+    }
+
+    private static final class Timing {
+
+        private final TestIdentifier identifier;
+        private final long nanos;
+
+        private Timing(final TestIdentifier identifier, final long nanos){
+            this.identifier = identifier;
+            this.nanos      = nanos;
+        }
+
+    }
+
+    private static final class Failure {
+
+        private final TestIdentifier identifier;
+        private final ExceptionClassifier.Classification kind;
+        private final String message;
+
+        private Failure(final TestIdentifier identifier, final ExceptionClassifier.Classification kind, final String message){
+            this.identifier = identifier;
+            this.kind       = kind;
+            this.message    = message;
+        }
+
+    }
+
+    @Override
+    public String toString(){
+        return "WorkflowSummaryListener{" +
+               "enabled=" + enabled +
+               ", slowest=" + slowest +
+               '}';
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2022 Katsute <https://github.com/Katsute>
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package dev.katsute.jcore;
+
+import java.util.Arrays;
+
+/**
+ * Captures the current stack, only walking the frames that are returned.
+ */
+final class StackCapture {
+
+    private static final StackWalker walker = StackWalker.getInstance(StackWalker.Option.SHOW_REFLECT_FRAMES);
+
+    private StackCapture(){ }
+
+    static StackTraceElement[] capture(final int skip, final int limit){
+        if(limit == Integer.MAX_VALUE){ // filling in the whole stack at once is faster than walking all of it
+            final StackTraceElement[] trace = new Throwable().getStackTrace();
+            return Arrays.copyOfRange(trace, Math.min(trace.length, 1 + skip), trace.length);
+        }
+        return walker.walk(frames -> frames
+            .skip(1 + skip)
+            .limit(limit)
+            .map(StackWalker.StackFrame::toStackTraceElement)
+            .toArray(StackTraceElement[]::new)
+        );
+    }
+
+    static StackTraceElement[] captureOutside(final String className, final int limit){
+        if(limit == Integer.MAX_VALUE){
+            final StackTraceElement[] trace = new Throwable().getStackTrace();
+            int start = 1;
+            while(start < trace.length - 1 && trace[start].getClassName().equals(className))
+                start++;
+            return Arrays.copyOfRange(trace, start, trace.length);
+        }
+        final StackTraceElement[] trace = walker.walk(frames -> frames
+            .skip(1)
+            .dropWhile(frame -> frame.getClassName().equals(className))
+            .limit(limit)
+            .map(StackWalker.StackFrame::toStackTraceElement)
+            .toArray(StackTraceElement[]::new)
+        );
+        // every frame is from the class, keep the outermost like the Java 8 version
+        return trace.length > 0 ? trace : walker.walk(frames -> frames
+            .reduce((first, second) -> second)
+            .map(frame -> new StackTraceElement[]{frame.toStackTraceElement()})
+            .orElse(trace)
+        );
+    }
+
+}
@@ -97,6 +97,28 @@ final class AnnotatedTests {
             Assertions.assertTrue(first.endsWith(": test warning"));
         }
 
+        @Test
+        final void testClassifierException(){
+            try{
+                Workflow.annotateTest(() -> {throw new SkipClassifier.Skip("test warning");});
+            }catch(final SkipClassifier.Skip ignored){}
+
+            final String first = OUT.toString().trim().split("%0A")[0];
+            Assertions.assertTrue(first.startsWith("::warning "));
+            Assertions.assertTrue(first.endsWith(": test warning"));
+        }
+
+        @Test
+        final void testDefaultClassifier(){
+            final ExceptionClassifier classifier = DefaultExceptionClassifier.INSTANCE;
+            Assertions.assertEquals(ExceptionClassifier.Classification.ASSUMPTION, classifier.classify(TestAbortedException.class));
+            Assertions.assertEquals(ExceptionClassifier.Classification.ASSUMPTION, classifier.classify(new TestAbortedException(){ }.getClass()));
+            Assertions.assertEquals(ExceptionClassifier.Classification.ASSERTION, classifier.classify(AssertionFailedError.class));
+            Assertions.assertEquals(ExceptionClassifier.Classification.ASSERTION, classifier.classify(MultipleFailuresError.class));
+            Assertions.assertEquals(ExceptionClassifier.Classification.ERROR, classifier.classify(IOException.class));
+            Assertions.assertNull(new SkipClassifier().classify(IOException.class));
+        }
+
         @Test
         final void testNonTestException(){
             try{
@@ -110,4 +132,43 @@ final class AnnotatedTests {
 
     }
 
+    @Nested
+    final class TestExtension {
+
+        private final WorkflowExtension extension = new WorkflowExtension();
+
+        @SuppressWarnings("SimplifiableAssertion")
+        @Test
+        final void testAssertion(){
+            final AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class, () -> Assertions.assertTrue(false));
+            Assertions.assertSame(error, Assertions.assertThrows(AssertionFailedError.class, () -> extension.handleTestExecutionException(null, error)));
+
+            final String[] lines = OUT.toString().trim().split("%0A");
+            Assertions.assertTrue(lines[0].startsWith("::error "));
+            Assertions.assertTrue(lines[0].endsWith(": expected: <true> but was: <false>"));
+            Assertions.assertTrue(lines[1].startsWith("dev.katsute.jcore.AnnotatedTests$TestExtension"));
+        }
+
+        @Test
+        final void testAssumption(){
+            final TestAbortedException aborted = Assertions.assertThrows(TestAbortedException.class, () -> Assumptions.assumeTrue(false));
+            Assertions.assertThrows(TestAbortedException.class, () -> extension.handleBeforeEachMethodExecutionException(null, aborted));
+
+            final String first = OUT.toString().trim().split("%0A")[0];
+            Assertions.assertTrue(first.startsWith("::warning "));
+            Assertions.assertTrue(first.endsWith(": Assumption failed: assumption is not true"));
+        }
+
+        @Test
+        final void testException(){
+            final IOException exception = new IOException("uncaught exception");
+            Assertions.assertThrows(IOException.class, () -> extension.handleAfterAllMethodExecutionException(null, exception));
+
+            final String first = OUT.toString().trim().split("%0A")[0];
+            Assertions.assertTrue(first.startsWith("::error "));
+            Assertions.assertTrue(first.endsWith(": uncaught exception"));
+        }
+
+    }
+
 }
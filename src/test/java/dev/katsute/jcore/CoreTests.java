@@ -1,9 +1,25 @@
 package dev.katsute.jcore;
 
 import org.junit.jupiter.api.*;
-
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
+import org.junit.platform.engine.*;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @TestMethodOrder(MethodOrderer.MethodName.class)
 final class CoreTests {
@@ -55,6 +71,221 @@ final class CoreTests {
 
     }
 
+    @Nested
+    final class TestEnvironment {
+
+        private String read(final String variable) throws IOException{
+            FileCommand.flushAll();
+            return readUnflushed(variable);
+        }
+
+        // what a child process or later step sees
+        private String readUnflushed(final String variable) throws IOException{
+            return new String(Files.readAllBytes(Paths.get(System.getenv(variable))), StandardCharsets.UTF_8).replace("\r", "");
+        }
+
+        @Test
+        final void testExportVariable() throws IOException{
+            Workflow.exportVariable("variable", "value");
+            Assertions.assertTrue(readUnflushed("GITHUB_ENV").endsWith("variable=value\n"));
+        }
+
+        @Test
+        final void testExportVariableMultiline() throws IOException{
+            Workflow.exportVariable("multiline", "line 1\nline 2");
+            final String env = readUnflushed("GITHUB_ENV");
+            final Matcher matcher = Pattern.compile("multiline<<(ghadelimiter_[\\w-]+)\nline 1\nline 2\n(ghadelimiter_[\\w-]+)\n$").matcher(env);
+            Assertions.assertTrue(matcher.find());
+            Assertions.assertEquals(matcher.group(1), matcher.group(2));
+        }
+
+        @Test
+        final void testStreamOutput() throws IOException{
+            Workflow.setOutputFrom("reader", new StringReader("line 1\nline 2"));
+            Assertions.assertTrue(Pattern.compile("reader<<(ghadelimiter_[\\w-]+)\nline 1\nline 2\n\\1\n$").matcher(read("GITHUB_OUTPUT")).find());
+
+            Workflow.setOutputFrom("stream", new ByteArrayInputStream("\u00e9\n".getBytes(StandardCharsets.UTF_8)));
+            Assertions.assertTrue(Pattern.compile("stream<<(ghadelimiter_[\\w-]+)\n\u00e9\n\n\\1\n$").matcher(read("GITHUB_OUTPUT")).find());
+        }
+
+        @Test
+        final void testStreamState() throws IOException{
+            final Path file = Files.createTempFile("jcore", ".txt");
+            try{
+                Files.write(file, "state value".getBytes(StandardCharsets.UTF_8));
+                Workflow.saveStateFrom("path", file);
+                Assertions.assertTrue(Pattern.compile("path<<(ghadelimiter_[\\w-]+)\nstate value\n\\1\n$").matcher(read("GITHUB_STATE")).find());
+            }finally{
+                Files.delete(file);
+            }
+        }
+
+        @Test
+        final void testStreamDelimiterCollision() throws IOException{
+            final FileCommand output = FileCommand.get("GITHUB_OUTPUT");
+            output.appendKeyValue("collision", new StringReader("a\r\nDELIMITER\r\nb"), "DELIMITER");
+            Assertions.assertTrue(Pattern.compile("collision<<(ghadelimiter_[\\w-]+)\na\nDELIMITER\nb\n\\1\n$").matcher(read("GITHUB_OUTPUT")).find());
+
+            output.appendKeyValue("end", new StringReader("a\nDELIMITER"), "DELIMITER");
+            Assertions.assertTrue(Pattern.compile("end<<(ghadelimiter_[\\w-]+)\na\nDELIMITER\n\\1\n$").matcher(read("GITHUB_OUTPUT")).find());
+
+            output.appendKeyValue("partial", new StringReader("DELIMITER2\nxDELIMITER"), "DELIMITER");
+            Assertions.assertTrue(read("GITHUB_OUTPUT").endsWith("partial<<DELIMITER\nDELIMITER2\nxDELIMITER\nDELIMITER\n"));
+        }
+
+        @Test
+        final void testStreamLargeDelimiterCollision() throws IOException{
+            final StringBuilder value = new StringBuilder();
+            while(value.length() < 2 * 1024 * 1024)
+                value.append("line of a large value\n");
+            value.append("DELIMITER");
+
+            final FileCommand output = FileCommand.get("GITHUB_OUTPUT");
+            output.appendKeyValue("large", new ByteArrayInputStream(value.toString().getBytes(StandardCharsets.UTF_8)), "DELIMITER");
+            final String out = read("GITHUB_OUTPUT");
+            final Matcher matcher = Pattern.compile("\n(ghadelimiter_[\\w-]+)\n$").matcher(out);
+            Assertions.assertTrue(matcher.find());
+            Assertions.assertTrue(out.endsWith("large<<" + matcher.group(1) + "\n" + value + "\n" + matcher.group(1) + "\n"));
+        }
+
+        @Test
+        final void testAddPath() throws IOException{
+            Workflow.addPath("/usr/local/jcore/bin");
+            Assertions.assertTrue(readUnflushed("GITHUB_PATH").endsWith("/usr/local/jcore/bin\n"));
+        }
+
+    }
+
+    @Nested
+    final class TestSummary {
+
+        private String read() throws IOException{
+            Summary.flush();
+            return new String(Files.readAllBytes(Paths.get(System.getenv("GITHUB_STEP_SUMMARY"))), StandardCharsets.UTF_8).replace("\r", "");
+        }
+
+        @Test
+        final void testSummary() throws IOException{
+            Files.write(Paths.get(System.getenv("GITHUB_STEP_SUMMARY")), new byte[0]); // left over from previous runs
+            Assertions.assertTrue(Summary.isAvailable());
+
+            Summary.addHeading("Results", 2);
+            Assertions.assertTrue(read().endsWith("## Results\n\n"));
+
+            try(final Summary.Table table = Summary.addTable("name", "value")){
+                table.addRow("a|b", 1);
+                table.addRow("multi\nline");
+            }
+            Assertions.assertTrue(read().endsWith("| name | value |\n| --- | --- |\n| a\\|b | 1 |\n| multi<br>line |  |\n\n"));
+
+            Summary.addCodeBlock("code ```", "java");
+            Assertions.assertTrue(read().endsWith("````java\ncode ```\n````\n\n"));
+
+            Summary.addDetails("label", "content");
+            Assertions.assertTrue(read().endsWith("<details><summary>label</summary>\n\ncontent\n\n</details>\n\n"));
+
+            // content added while a table is open goes before it
+            try(final Summary.Table table = Summary.addTable("name")){
+                table.addRow("a");
+                Summary.addParagraph("paragraph");
+                table.addRow("b");
+            }
+            Assertions.assertTrue(read().endsWith("paragraph\n\n| name |\n| --- |\n| a |\n| b |\n\n"));
+
+            // written by another process
+            final char[] external = new char[512 * 1024];
+            Arrays.fill(external, 'x');
+            Files.write(Paths.get(System.getenv("GITHUB_STEP_SUMMARY")), (new String(external) + "\n\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+            // runs last, the summary stays truncated for the rest of the JVM
+            try(final Summary.Table table = Summary.addTable("index", "text")){
+                for(int i = 0; i < 50_000 && !Summary.isTruncated(); i++)
+                    table.addRow(i, "some text to fill the summary");
+            }
+            Assertions.assertTrue(Summary.isTruncated());
+            Assertions.assertTrue(Files.size(Paths.get(System.getenv("GITHUB_STEP_SUMMARY"))) <= 1024 * 1024);
+            Assertions.assertTrue(read().endsWith(" | some text to fill the summary |\n\n\n> **Summary truncated, the job summary size limit was reached**\n"));
+        }
+
+    }
+
+    enum Mode {
+        RUN,
+        DRY_RUN
+    }
+
+    static final class Inputs {
+
+        @Input
+        private String input;
+        @Input(name = "whitespace", trim = false)
+        private String whitespace;
+        @Input(name = "multiple lines")
+        private String[] lines;
+        @Input(name = "boolean")
+        private boolean bool;
+        @Input
+        private int number;
+        @Input(name = "number")
+        private Long numberLong;
+        @Input
+        private java.time.Duration duration;
+        @Input
+        private Mode mode;
+        @Input
+        private String missing = "default";
+
+    }
+
+    static final class EmptyInputs {
+
+        @Input(name = "empty")
+        private String string = "default";
+        @Input(name = "empty")
+        private String[] lines = {"default"};
+        @Input(name = "empty")
+        private boolean bool = true;
+        @Input(name = "empty")
+        private int number = 7;
+        @Input(name = "empty")
+        private long numberLong = 7;
+        @Input(name = "empty")
+        private double numberDouble = 7;
+        @Input(name = "empty")
+        private java.time.Duration duration = java.time.Duration.ofSeconds(7);
+        @Input(name = "empty")
+        private Mode mode = Mode.RUN;
+
+    }
+
+    static final class RequiredEmptyString {
+
+        @Input(name = "empty", required = true)
+        private String string;
+
+    }
+
+    static final class RequiredEmptyBoolean {
+
+        @Input(name = "empty", required = true)
+        private boolean bool;
+
+    }
+
+    static final class RequiredInputs {
+
+        @Input(required = true)
+        private String missing;
+
+    }
+
+    static final class FinalInputs {
+
+        @Input
+        private final String input = null;
+
+    }
+
     @Nested
     final class TestInput {
 
@@ -128,6 +359,149 @@ final class CoreTests {
             Assertions.assertThrows(IllegalArgumentException.class, () -> Workflow.getBooleanInput("wrong"));
         }
 
+        @Test
+        final void testInputLocale(){
+            final Locale locale = Locale.getDefault();
+            Locale.setDefault(new Locale("tr", "TR"));
+            try{
+                Assertions.assertEquals("val", Workflow.getInput("input"));
+            }finally{
+                Locale.setDefault(locale);
+            }
+        }
+
+        @Test
+        final void testInputMultipleLinesLazy(){
+            Assertions.assertArrayEquals(new String[]{"val1", "val2", "val3"}, Workflow.streamMultilineInput("multiple lines").map(CharSequence::toString).toArray());
+            final List<String> lines = new ArrayList<>();
+            for(final CharSequence line : Workflow.iterateMultilineInput("multiple lines"))
+                lines.add(line.toString());
+            Assertions.assertEquals(Arrays.asList("val1", "val2", "val3"), lines);
+            Assertions.assertEquals(0, Workflow.streamMultilineInput("missing").count());
+            Assertions.assertThrows(NullPointerException.class, () -> Workflow.iterateMultilineInput("missing", true));
+        }
+
+        @Test
+        final void testLines(){
+            final Iterator<CharSequence> lines = new Lines("  a \r\n\r\n\tbc\r\n \nd").iterator();
+            final CharSequence a = lines.next();
+            Assertions.assertEquals("a", a.toString());
+            Assertions.assertEquals(1, a.length());
+            final CharSequence bc = lines.next();
+            Assertions.assertEquals('c', bc.charAt(1));
+            Assertions.assertEquals("c", bc.subSequence(1, 2).toString());
+            Assertions.assertEquals("d", lines.next().toString());
+            Assertions.assertFalse(lines.hasNext());
+            Assertions.assertThrows(NoSuchElementException.class, lines::next);
+        }
+
+        @Test
+        final void testInputMultipleLinesCopy(){
+            Workflow.getMultilineInput("multiple lines")[0] = "changed";
+            Assertions.assertEquals("val1", Workflow.getMultilineInput("multiple lines")[0]);
+        }
+
+        @Test
+        final void testInputTyped(){
+            Assertions.assertEquals(42, Workflow.getIntInput("number"));
+            Assertions.assertEquals(42L, Workflow.getLongInput("number"));
+            Assertions.assertEquals(42d, Workflow.getDoubleInput("number"));
+            Assertions.assertEquals(java.time.Duration.ofMinutes(90), Workflow.getDurationInput("duration"));
+            Assertions.assertEquals(512L * 1024 * 1024, Workflow.getSizeInput("size"));
+            Assertions.assertEquals(Mode.DRY_RUN, Workflow.getEnumInput("mode", Mode.class));
+            Assertions.assertArrayEquals(new String[]{"a", "b", "c"}, Workflow.getListInput("list"));
+        }
+
+        @Test
+        final void testInputTypedDefault(){
+            Assertions.assertEquals(7, Workflow.getIntInput("missing", 7));
+            Assertions.assertEquals(7, Workflow.getIntInput("empty", 7));
+            Assertions.assertEquals(Mode.RUN, Workflow.getEnumInput("missing", Mode.class, Mode.RUN));
+            Assertions.assertNull(Workflow.getListInput("missing", null));
+            Assertions.assertThrows(NullPointerException.class, () -> Workflow.getIntInput("missing"));
+            Assertions.assertThrows(NullPointerException.class, () -> Workflow.getIntInput("empty"));
+        }
+
+        @Test
+        final void testInputTypedInvalid(){
+            final IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class, () -> Workflow.getIntInput("wrong"));
+            Assertions.assertEquals("Input 'wrong' is not a valid int: 'wrong'", e.getMessage());
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Workflow.getDurationInput("wrong", null));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Workflow.getSizeInput("wrong", 0));
+            Assertions.assertTrue(Assertions.assertThrows(IllegalArgumentException.class, () -> Workflow.getEnumInput("wrong", Mode.class)).getMessage().endsWith("expected one of [RUN, DRY_RUN]"));
+        }
+
+        @Test
+        final void testInputConverter(){
+            Assertions.assertEquals(java.time.Duration.ofSeconds(30), InputConverter.parseDuration("30s"));
+            Assertions.assertEquals(java.time.Duration.ofMillis(1250), InputConverter.parseDuration("1s 250ms"));
+            Assertions.assertEquals(java.time.Duration.ofDays(2), InputConverter.parseDuration("2d"));
+            Assertions.assertEquals(java.time.Duration.ofNanos(5000), InputConverter.parseDuration("5\u00b5s"));
+            Assertions.assertEquals(java.time.Duration.ofMinutes(90), InputConverter.parseDuration("PT1H30M"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> InputConverter.parseDuration("30"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> InputConverter.parseDuration("30y"));
+
+            Assertions.assertEquals(100, InputConverter.parseSize("100"));
+            Assertions.assertEquals(10_000, InputConverter.parseSize("10KB"));
+            Assertions.assertEquals(10_240, InputConverter.parseSize("10KiB"));
+            Assertions.assertEquals(10_240, InputConverter.parseSize("10K"));
+            Assertions.assertEquals(1536L * 1024 * 1024, InputConverter.parseSize("1.5 GiB"));
+            Assertions.assertEquals(1, InputConverter.parseSize("1.9 B"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> InputConverter.parseSize("99999999999TB"));
+        }
+
+        @Test
+        final void testBindInputs(){
+            final Inputs inputs = Workflow.bindInputs(Inputs.class);
+            Assertions.assertEquals("val", inputs.input);
+            Assertions.assertEquals("  some val  ", inputs.whitespace);
+            Assertions.assertArrayEquals(new String[]{"val1", "val2", "val3"}, inputs.lines);
+            Assertions.assertTrue(inputs.bool);
+            Assertions.assertEquals(42, inputs.number);
+            Assertions.assertEquals(42L, inputs.numberLong);
+            Assertions.assertEquals(java.time.Duration.ofMinutes(90), inputs.duration);
+            Assertions.assertEquals(Mode.DRY_RUN, inputs.mode);
+            Assertions.assertEquals("default", inputs.missing);
+            Assertions.assertNotSame(inputs, Workflow.bindInputs(Inputs.class));
+        }
+
+        @Test
+        final void testBindEmptyInputs(){
+            final EmptyInputs inputs = Workflow.bindInputs(EmptyInputs.class);
+            Assertions.assertEquals("default", inputs.string);
+            Assertions.assertArrayEquals(new String[]{"default"}, inputs.lines);
+            Assertions.assertTrue(inputs.bool);
+            Assertions.assertEquals(7, inputs.number);
+            Assertions.assertEquals(7L, inputs.numberLong);
+            Assertions.assertEquals(7D, inputs.numberDouble);
+            Assertions.assertEquals(java.time.Duration.ofSeconds(7), inputs.duration);
+            Assertions.assertEquals(Mode.RUN, inputs.mode);
+
+            Assertions.assertThrows(NullPointerException.class, () -> Workflow.bindInputs(RequiredEmptyString.class));
+            Assertions.assertThrows(NullPointerException.class, () -> Workflow.bindInputs(RequiredEmptyBoolean.class));
+        }
+
+        @Test
+        final void testBindInputsInvalid(){
+            Assertions.assertThrows(NullPointerException.class, () -> Workflow.bindInputs(RequiredInputs.class));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Workflow.bindInputs(FinalInputs.class));
+        }
+
+        @Test
+        final void testInputRegistry(){
+            final Map<String,String> env = new HashMap<>();
+            env.put("INPUT_MY_INPUT", "a");
+            env.put("INPUT_my_input", "b");
+            env.put("INPUT_lower", "c");
+            env.put("PATH", "/bin");
+            final InputRegistry registry = new InputRegistry(env);
+            Assertions.assertEquals(2, registry.size());
+            Assertions.assertEquals("a", registry.find("my input").value);
+            Assertions.assertEquals("c", registry.find("LOWER").value);
+            Assertions.assertNull(registry.find("path"));
+            Assertions.assertNull(registry.find(null));
+        }
+
     }
 
     @Nested
@@ -163,6 +537,22 @@ final class CoreTests {
             System.out.println("::stop-commands::stop-key");
         }
 
+        @Test
+        final void testSetOutputObject(){
+            System.out.println("::stop-key::");
+
+            final Path path = Paths.get("dir", "file.txt");
+            Workflow.setOutput("path", path);
+            Workflow.setOutput("null", null);
+            Workflow.saveState("null", null);
+            final String[] lines = OUT.toString().trim().replace("\r", "").split("\n");
+            Assertions.assertEquals("::set-output name=path::" + path, lines[1]);
+            Assertions.assertEquals("::set-output name=null::", lines[2]);
+            Assertions.assertEquals("::save-state name=null::", lines[3]);
+
+            System.out.println("::stop-commands::stop-key");
+        }
+
     }
 
     @Nested
@@ -214,6 +604,136 @@ final class CoreTests {
             Assertions.assertEquals("::debug::%0D%0Adebug%0A", OUT.toString().trim());
         }
 
+        @Test
+        final void testDebugReentrant(){
+            final int[] calls = {0};
+            final Object message = new Object(){
+                @Override
+                public final String toString(){
+                    calls[0]++;
+                    Workflow.debug("inner");
+                    return "outer";
+                }
+            };
+            Workflow.saveState("state", message);
+            Workflow.setAnnotationAggregation(true);
+            try{
+                Workflow.prepare("warning", null).issue(message);
+            }finally{
+                Workflow.setAnnotationAggregation(false);
+            }
+            Assertions.assertEquals(2, calls[0]);
+            Assertions.assertEquals("::debug::inner\n::save-state name=state::outer\n::debug::inner\n::warning::outer", OUT.toString().trim().replace("\r", ""));
+        }
+
+    }
+
+    @Nested
+    final class TestLogLevel {
+
+        private final LogLevel level = Workflow.getLogLevel();
+
+        @AfterEach
+        final void afterEach(){
+            Workflow.setLogLevel(level);
+        }
+
+        @Test
+        final void testSupplier(){
+            Workflow.setLogLevel(LogLevel.DEBUG);
+            Workflow.debugLazy(() -> "Debug");
+            Workflow.noticeLazy(() -> "Notice");
+            Assertions.assertEquals("::debug::Debug\n::notice::Notice", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @Test
+        final void testSupplierDisabled(){
+            Workflow.setLogLevel(LogLevel.WARNING);
+            Workflow.debugLazy(() -> Assertions.fail("debug message should not be created"));
+            Workflow.noticeLazy(() -> Assertions.fail("notice message should not be created"));
+            Assertions.assertEquals("", OUT.toString());
+
+            Workflow.warningLazy(() -> "Warning");
+            final String first = firstLine();
+            Assertions.assertTrue(first.startsWith("::warning file="));
+            Assertions.assertTrue(first.contains("src/test/java/dev/katsute/jcore/CoreTests.java,"));
+            Assertions.assertTrue(first.endsWith(": Warning"));
+        }
+
+        @Test
+        final void testNullMessages(){
+            Workflow.setLogLevel(LogLevel.DEBUG);
+            Workflow.debug(null);
+            Workflow.notice(null);
+            Workflow.notice(null, null);
+            Workflow.warning(null, null);
+            Workflow.error(null, null);
+            Assertions.assertEquals("::debug::\n::notice::\n::notice::\n::warning::\n::error::", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @Test
+        final void testLog(){
+            Workflow.setLogLevel(LogLevel.ERROR);
+            Assertions.assertFalse(Workflow.isEnabled(LogLevel.WARNING));
+            Workflow.log(LogLevel.WARNING, () -> Assertions.fail("warning message should not be created"));
+            Workflow.log(LogLevel.ERROR, () -> "Error");
+            final String first = firstLine();
+            Assertions.assertTrue(first.startsWith("::error file="));
+            Assertions.assertTrue(first.contains("src/test/java/dev/katsute/jcore/CoreTests.java,"));
+            Assertions.assertTrue(first.endsWith(": Error"));
+        }
+
+    }
+
+    @Nested
+    final class TestLogBridge {
+
+        @Test
+        final void testJavaLogging(){
+            final java.util.logging.Logger logger = java.util.logging.Logger.getLogger("jcore");
+            final WorkflowLogHandler handler = new WorkflowLogHandler();
+            logger.setUseParentHandlers(false);
+            logger.addHandler(handler);
+            try{
+                logger.warning("message");
+                handler.flush();
+                final String first = firstLine();
+                Assertions.assertTrue(first.startsWith("::warning file="));
+                Assertions.assertTrue(first.endsWith("CoreTests.java::message"));
+            }finally{
+                logger.removeHandler(handler);
+            }
+        }
+
+        @Test
+        final void testLog4j(){
+            final WorkflowLog4jAppender appender = WorkflowLog4jAppender.createAppender("test", null);
+            appender.start();
+            appender.append(org.apache.logging.log4j.core.impl.Log4jLogEvent.newBuilder()
+                .setLevel(org.apache.logging.log4j.Level.INFO)
+                .setMessage(new org.apache.logging.log4j.message.SimpleMessage("message"))
+                .build());
+            appender.stop();
+            Assertions.assertEquals("::notice::message", firstLine());
+        }
+
+        @Test
+        final void testLogback(){
+            final ch.qos.logback.classic.LoggerContext context = new ch.qos.logback.classic.LoggerContext();
+            final WorkflowLogbackAppender appender = new WorkflowLogbackAppender();
+            appender.setContext(context);
+            appender.start();
+            final ch.qos.logback.classic.Logger logger = context.getLogger("jcore");
+            logger.addAppender(appender);
+
+            logger.error("message", new IllegalStateException("exception"));
+            appender.stop();
+            final String first = firstLine();
+            Assertions.assertTrue(first.startsWith("::error file="));
+            Assertions.assertTrue(first.contains("CoreTests.java,line="));
+            Assertions.assertTrue(first.endsWith(": message"));
+        }
+
     }
 
     @Nested
@@ -246,6 +766,17 @@ final class CoreTests {
             Assertions.assertEquals(firstLine(), "::notice title=A title,file=root/test.txt,col=1,endColumn=2,line=3,endLine=4::Notice");
         }
 
+        @SuppressWarnings("SpellCheckingInspection")
+        @Test
+        final void testNoticePropertyEscapes(){
+            Workflow.notice(
+                "100%: a, b\r\n",
+                new AnnotationProperties.Builder()
+                    .title("100%: a, b\r\n")
+                    .build());
+            Assertions.assertEquals("::notice title=100%25%3A a%2C b%0D%0A::100%25: a, b%0D%0A", OUT.toString().trim());
+        }
+
     }
 
     @Nested
@@ -306,6 +837,20 @@ final class CoreTests {
             Assertions.assertTrue(first.endsWith(": NPE"));
         }
 
+        @Test
+        final void testWarningStackTraceLimit(){
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Workflow.setStackTraceLimit(0));
+            Workflow.setStackTraceLimit(2);
+            try{
+                Workflow.warning("Warning");
+            }finally{
+                Workflow.setStackTraceLimit(Integer.MAX_VALUE);
+            }
+            final String[] lines = OUT.toString().trim().split("%0A");
+            Assertions.assertTrue(lines[1].startsWith("dev.katsute.jcore.CoreTests$TestWarning.testWarningStackTraceLimit"));
+            Assertions.assertEquals(3, lines.length);
+        }
+
     }
 
     @Nested
@@ -368,6 +913,124 @@ final class CoreTests {
 
     }
 
+    @Nested
+    final class TestAnnotationAggregation {
+
+        @AfterEach
+        final void afterEach(){
+            Workflow.setAnnotationAggregation(false);
+        }
+
+        @Test
+        final void testRepeatedAnnotation(){
+            Workflow.setAnnotationAggregation(true);
+            for(int i = 0; i < 3; i++)
+                Workflow.warning("repeated");
+            final String[] lines = OUT.toString().trim().split("\n");
+            Assertions.assertEquals(1, lines.length);
+            Assertions.assertTrue(lines[0].startsWith("::warning "));
+
+            Workflow.printAnnotationSummary();
+            final String summary = OUT.toString();
+            Assertions.assertTrue(summary.contains("::group::Suppressed annotations (1)"));
+            Assertions.assertTrue(summary.contains("x3 : repeated"));
+        }
+
+        @Test
+        final void testCollidingMessages(){
+            // same length and same String hash code
+            Assertions.assertEquals("Aa".hashCode(), "BB".hashCode());
+            Workflow.setAnnotationAggregation(true);
+            Workflow.error("Aa", null);
+            Workflow.error("BB", null);
+            Assertions.assertEquals("::error::Aa\n::error::BB", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @Test
+        final void testAnnotationLimit(){
+            Workflow.setAnnotationAggregation(true, 1);
+            Workflow.notice("first", null);
+            Workflow.notice("second", null);
+            Workflow.error("error", null);
+            Assertions.assertEquals("::notice::first\n::error::error", OUT.toString().trim().replace("\r", ""));
+
+            Workflow.printAnnotationSummary();
+            Assertions.assertTrue(OUT.toString().contains("notice x1 (over limit) : second"));
+        }
+
+        @Test
+        final void testSummaryCounts(){
+            Workflow.setAnnotationAggregation(true, 1);
+            for(int i = 0; i < 3; i++)
+                Workflow.notice("shown", null);
+            for(int i = 0; i < 3; i++)
+                Workflow.notice("over", null);
+
+            Workflow.printAnnotationSummary();
+            final String summary = OUT.toString();
+            Assertions.assertTrue(summary.contains("notice x3 : shown"));
+            Assertions.assertTrue(summary.contains("notice x3 (over limit) : over"));
+        }
+
+        @Test
+        final void testUntrackedAnnotations(){
+            Workflow.setAnnotationAggregation(true, 1);
+            // 1 printed, 100 kept for the summary, the rest only counted
+            for(int i = 0; i < 151; i++)
+                Workflow.warning("unique " + i);
+            Workflow.warning("unique 150");
+
+            Workflow.printAnnotationSummary();
+            final String summary = OUT.toString();
+            Assertions.assertTrue(summary.contains("::group::Suppressed annotations (101)"));
+            Assertions.assertTrue(summary.contains(" x1 (over limit) : unique 100"));
+            Assertions.assertFalse(summary.contains(": unique 101"));
+            Assertions.assertTrue(summary.contains("warning x51 (over limit) : other annotations"));
+        }
+
+    }
+
+    @Nested
+    final class TestPreparedCommand {
+
+        @Test
+        final void testPrepared(){
+            final PreparedCommand warning = Workflow.prepare(
+                "warning",
+                new AnnotationProperties.Builder()
+                    .title("A title: 1, 2")
+                    .file("root/test.txt")
+                    .startLine(3)
+                    .build());
+            warning.issue("first");
+            warning.issue("second%\n");
+            Assertions.assertEquals("::warning title=A title%3A 1%2C 2,file=root/test.txt,line=3::first\n::warning title=A title%3A 1%2C 2,file=root/test.txt,line=3::second%25%0A", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @Test
+        final void testPreparedNoProperties(){
+            Workflow.prepare("debug", null).issue("message");
+            Workflow.prepare("endgroup", null).issue();
+            Assertions.assertEquals("::debug::message\n::endgroup::", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @SuppressWarnings("SpellCheckingInspection")
+        @Test
+        final void testPreparedEndGroupFlushes(){
+            Workflow.setCommandSink(new BufferedCommandSink(1024, 0));
+            try{
+                Workflow.prepare("group", null).issue("group");
+                Workflow.info("in group");
+                Assertions.assertEquals("", OUT.toString());
+                Workflow.prepare("endgroup", null).issue();
+                Assertions.assertEquals("::group::group\nin group\n::endgroup::", OUT.toString().trim().replace("\r", ""));
+            }finally{
+                Workflow.setCommandSink(null);
+            }
+        }
+
+    }
+
     @Nested
     final class TestGroup {
 
@@ -388,6 +1051,40 @@ final class CoreTests {
             Assertions.assertEquals("::group::mygroup\nin my group\n::endgroup::", OUT.toString().trim().replace("\r", ""));
         }
 
+        @SuppressWarnings("SpellCheckingInspection")
+        @Test
+        final void testGroupBuffering() throws InterruptedException{
+            final PrintStream out = System.out;
+            Workflow.setGroupBuffering(true);
+            try{
+                final CountDownLatch inGroup = new CountDownLatch(1);
+                final CountDownLatch printed = new CountDownLatch(1);
+                final Thread other = new Thread(() -> {
+                    try{
+                        inGroup.await();
+                    }catch(final InterruptedException ignored){ }
+                    System.out.println("other thread");
+                    printed.countDown();
+                });
+                other.start();
+
+                Workflow.startGroup("mygroup", () -> {
+                    System.out.println("in my group");
+                    inGroup.countDown();
+                    try{
+                        printed.await();
+                    }catch(final InterruptedException ignored){ }
+                    Workflow.info("still in my group");
+                });
+                other.join();
+
+                Assertions.assertEquals("other thread\n::group::mygroup\nin my group\nstill in my group\n::endgroup::", OUT.toString().trim().replace("\r", ""));
+                Assertions.assertSame(out, System.out);
+            }finally{
+                Workflow.setGroupBuffering(false);
+            }
+        }
+
     }
 
     @Nested
@@ -444,6 +1141,685 @@ final class CoreTests {
 
     }
 
+    @Nested
+    final class TestCommandSink {
+
+        @AfterEach
+        final void afterEach(){
+            Workflow.setCommandSink(null);
+        }
+
+        @Test
+        final void testBufferedSink(){
+            Workflow.setCommandSink(new BufferedCommandSink(1024, 0));
+            Workflow.debug("one");
+            Workflow.info("two");
+            Assertions.assertEquals("", OUT.toString());
+
+            Workflow.getCommandSink().flush();
+            Assertions.assertEquals("::debug::one\ntwo", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @Test
+        final void testBufferedSinkSize(){
+            Workflow.setCommandSink(new BufferedCommandSink(16, 0));
+            Workflow.debug("short");
+            Assertions.assertEquals("", OUT.toString());
+            Workflow.debug("long enough to flush");
+            Assertions.assertEquals("::debug::short\n::debug::long enough to flush", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @SuppressWarnings("SpellCheckingInspection")
+        @Test
+        final void testBufferedSinkGroup(){
+            Workflow.setCommandSink(new BufferedCommandSink(1024, 0));
+            Workflow.startGroup("group", () -> Workflow.info("in group"));
+            Assertions.assertEquals("::group::group\nin group\n::endgroup::", OUT.toString().trim().replace("\r", ""));
+        }
+
+        @SuppressWarnings("SpellCheckingInspection")
+        @Test
+        final void testBufferedSinkGroupBuffering(){
+            Workflow.setCommandSink(new BufferedCommandSink(1024, 0));
+            Workflow.setGroupBuffering(true);
+            try{
+                Workflow.info("before");
+                Workflow.startGroup("group", () -> Workflow.info("in group"));
+                Workflow.info("after");
+                Workflow.getCommandSink().flush();
+                Assertions.assertEquals("before\n::group::group\nin group\n::endgroup::\nafter", OUT.toString().trim().replace("\r", ""));
+            }finally{
+                Workflow.setGroupBuffering(false);
+            }
+        }
+
+        @SuppressWarnings("SpellCheckingInspection")
+        @Test
+        final void testGroupBufferingReplaysThroughSink(){
+            final List<String> lines = new ArrayList<>();
+            Workflow.setCommandSink(new CommandSink(){
+                @Override
+                public final void write(final CharSequence line){
+                    lines.add(line.toString());
+                }
+
+                @Override
+                public final void flush(){ }
+            });
+            Workflow.setGroupBuffering(true);
+            try{
+                Workflow.startGroup("group", () -> {
+                    Workflow.info("in group \u00e9\u20ac\uD83D\uDE00");
+                    System.out.println("printed");
+                });
+                Assertions.assertEquals(Arrays.asList("::group::group", "in group \u00e9\u20ac\uD83D\uDE00", "printed", "::endgroup::"), lines);
+                Assertions.assertEquals("", OUT.toString());
+            }finally{
+                Workflow.setGroupBuffering(false);
+            }
+        }
+
+        @Test
+        final void testBufferedSinkReset(){
+            Workflow.setCommandSink(new BufferedCommandSink(1024, 0));
+            Workflow.debug("pending");
+            Workflow.setCommandSink(null);
+            Assertions.assertEquals("::debug::pending", OUT.toString().trim());
+        }
+
+        @Test
+        final void testAsyncSink(){
+            final AsyncCommandSink sink = new AsyncCommandSink(16, AsyncCommandSink.Backpressure.BLOCK);
+            Workflow.setCommandSink(sink);
+            for(int i = 0; i < 100; i++)
+                Workflow.debug(String.valueOf(i));
+            sink.flush();
+
+            final String[] lines = OUT.toString().trim().replace("\r", "").split("\n");
+            Assertions.assertEquals(100, lines.length);
+            for(int i = 0; i < 100; i++)
+                Assertions.assertEquals("::debug::" + i, lines[i]);
+            sink.close();
+        }
+
+        @Test
+        final void testAsyncSinkDropDebug() throws InterruptedException{
+            final CountDownLatch latch = new CountDownLatch(1);
+            final StringBuilder written = new StringBuilder();
+            final AsyncCommandSink sink = new AsyncCommandSink(new CommandSink(){
+                @Override
+                public final void write(final CharSequence line){
+                    try{
+                        latch.await();
+                    }catch(final InterruptedException ignored){ }
+                    written.append(line).append('\n');
+                }
+
+                @Override
+                public final void flush(){ }
+            }, 1, AsyncCommandSink.Backpressure.DROP_DEBUG);
+
+            sink.write("::debug::a");
+            sink.write("::debug::b");
+            sink.write("::debug::c");
+            Assertions.assertTrue(sink.getDropped() > 0);
+
+            latch.countDown();
+            sink.close();
+            Assertions.assertTrue(written.toString().startsWith("::debug::a"));
+            Assertions.assertTrue(written.toString().contains("::warning::Dropped " + sink.getDropped()));
+        }
+
+        @Test
+        final void testAsyncSinkDropDebugKeepsControl() throws InterruptedException{
+            final BlockingSink target = new BlockingSink();
+            final AsyncCommandSink sink = new AsyncCommandSink(target, 1, AsyncCommandSink.Backpressure.DROP_DEBUG);
+
+            sink.write("::debug::a");
+            target.entered.await();
+            sink.write("::debug::b");
+            sink.write("::add-mask::secret");
+            sink.write("::debug::c");
+            Assertions.assertEquals(1, sink.getDropped());
+
+            target.release.countDown();
+            sink.close();
+            Assertions.assertEquals("::debug::a\n::debug::b\n::add-mask::secret\n::warning::Dropped 1 workflow commands because the output queue was full\n", target.written.toString());
+        }
+
+        @Test
+        final void testAsyncSinkDropOldestKeepsControl() throws InterruptedException{
+            final BlockingSink target = new BlockingSink();
+            final AsyncCommandSink sink = new AsyncCommandSink(target, 2, AsyncCommandSink.Backpressure.DROP_OLDEST);
+
+            sink.write("a");
+            target.entered.await();
+            sink.write("b");
+            sink.write("::add-mask::secret");
+            sink.write("c"); // drops b
+            sink.write("::group::group");
+            sink.write("d"); // drops c
+            sink.write("::endgroup::");
+            Assertions.assertEquals(2, sink.getDropped());
+
+            target.release.countDown();
+            sink.close();
+            Assertions.assertEquals("a\n::add-mask::secret\n::group::group\nd\n::endgroup::\n::warning::Dropped 2 workflow commands because the output queue was full\n", target.written.toString());
+        }
+
+        @Test
+        final void testAsyncSinkDropOldestOnlyControl() throws InterruptedException{
+            final BlockingSink target = new BlockingSink();
+            final AsyncCommandSink sink = new AsyncCommandSink(target, 1, AsyncCommandSink.Backpressure.DROP_OLDEST);
+
+            sink.write("a");
+            target.entered.await();
+            sink.write("::add-mask::secret");
+            sink.write("b"); // nothing older can be dropped
+            Assertions.assertEquals(1, sink.getDropped());
+
+            target.release.countDown();
+            sink.close();
+            Assertions.assertEquals("a\n::add-mask::secret\n::warning::Dropped 1 workflow commands because the output queue was full\n", target.written.toString());
+        }
+
+        @Test
+        final void testAsyncSinkBlockWaits() throws InterruptedException{
+            final BlockingSink target = new BlockingSink();
+            final AsyncCommandSink sink = new AsyncCommandSink(target, 1, AsyncCommandSink.Backpressure.BLOCK);
+
+            sink.write("a");
+            target.entered.await();
+            sink.write("b");
+            final Thread blocked = new Thread(() -> sink.write("c"));
+            blocked.start();
+            blocked.join(100);
+            Assertions.assertTrue(blocked.isAlive());
+
+            target.release.countDown();
+            blocked.join();
+            sink.close();
+            Assertions.assertEquals(0, sink.getDropped());
+            Assertions.assertEquals("a\nb\nc\n", target.written.toString().replace(System.lineSeparator(), "\n"));
+        }
+
+
+        @Test
+        final void testAsyncSinkWriteAfterClose() throws InterruptedException{
+            final BlockingSink target = new BlockingSink();
+            final AsyncCommandSink sink = new AsyncCommandSink(target, 8, AsyncCommandSink.Backpressure.BLOCK);
+
+            sink.write("a");
+            target.entered.await();
+            sink.write("b");
+            final Thread closer = new Thread(sink::close);
+            closer.start();
+            closer.join(100);
+            Assertions.assertTrue(closer.isAlive());
+            final Thread late = new Thread(() -> sink.write("c"));
+            late.start();
+            late.join(100);
+
+            target.release.countDown();
+            closer.join();
+            late.join();
+            Assertions.assertEquals("a\nb\nc\n", target.written.toString().replace(System.lineSeparator(), "\n"));
+        }
+
+        @Test
+        final void testChannelSinkSurrogates() throws IOException{
+            final Path file = Files.createTempFile("jcore", ".txt");
+            try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)){
+                // 4 chars per chunk and 16 bytes per buffer, so pairs and multibyte characters land on every boundary
+                final ChannelCommandSink sink = new ChannelCommandSink(channel, () -> System.out, 16);
+                final StringBuilder expected = new StringBuilder();
+                for(int i = 0; i < 8; i++){
+                    final String prefix = new String(new char[i]).replace('\0', 'a');
+                    for(final String line : new String[]{
+                        prefix + "\uD83D\uDE00\u00e9\u20ac",  // pair, two and three byte characters
+                        prefix + "\uD83Dxyz",                    // high surrogate without a low surrogate
+                        prefix + "\uDE00xyz",                    // low surrogate without a high surrogate
+                        prefix + "\uD83D\uD83D\uDE00",         // lone high surrogate before a pair
+                        prefix + "\uD83D"                        // high surrogate at the end
+                    }){
+                        sink.write(line);
+                        expected.append(line).append(System.lineSeparator());
+                    }
+                }
+                Assertions.assertArrayEquals(expected.toString().getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+            }finally{
+                Files.delete(file);
+            }
+        }
+
+        @Test
+        final void testChannelSinkPool() throws IOException{
+            final Path file = Files.createTempFile("jcore", ".txt");
+            try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)){
+                final ChannelCommandSink sink = new ChannelCommandSink(channel, () -> System.out, 16);
+                final String wide = new String(new char[1000]).replace('\0', '\u20ac');
+                sink.write(wide);
+                Assertions.assertEquals(16, sink.getPooled());
+                sink.write("short");
+                sink.write(new StringBuilder("::debug::").append(wide));
+                Assertions.assertEquals(16, sink.getPooled());
+
+                final String ls = System.lineSeparator();
+                Assertions.assertEquals(wide + ls + "short" + ls + "::debug::" + wide + ls, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }finally{
+                Files.delete(file);
+            }
+        }
+
+        @Test
+        final void testChannelSinkInterleaving() throws IOException{
+            final Path file = Files.createTempFile("jcore", ".txt");
+            try(
+                final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                final PrintStream out = new PrintStream(new FileOutputStream(file.toFile(), true), false, "UTF-8")
+            ){
+                final ChannelCommandSink sink = new ChannelCommandSink(channel, () -> out, 8 * 1024);
+                out.print("plain ");
+                sink.write("::debug::one");
+                out.println("two");
+                sink.write("three");
+                sink.flush();
+                out.print("four");
+                sink.flush();
+
+                final String ls = System.lineSeparator();
+                Assertions.assertEquals("plain ::debug::one" + ls + "two" + ls + "three" + ls + "four", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }finally{
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static final class BlockingSink implements CommandSink {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final StringBuilder written  = new StringBuilder();
+
+        @Override
+        public final void write(final CharSequence line){
+            entered.countDown();
+            try{
+                release.await();
+            }catch(final InterruptedException ignored){ }
+            written.append(line).append('\n');
+        }
+
+        @Override
+        public final void flush(){ }
+
+
+    }
+
+    @Nested
+    final class TestSourceIndex {
+
+        @Test
+        final void testParseJava(){
+            final List<String> classes = new ArrayList<>();
+            SourceIndex.parse(
+                "/* class Comment */\n" +
+                "package a.b;\n" +
+                "import java.util.List;\n" +
+                "@Deprecated\n" +
+                "public final class Main {\n" +
+                "    static final class Inner { String s = \"} class Str {\"; char c = '{'; }\n" +
+                "}\n" +
+                "@interface Marker { }\n" +
+                "enum Kind { A, B }\n",
+                "Main.java", classes
+            );
+            Assertions.assertEquals(Arrays.asList("a.b.Main", "a.b.Marker", "a.b.Kind"), classes);
+        }
+
+        @Test
+        final void testParseKotlin(){
+            final List<String> classes = new ArrayList<>();
+            SourceIndex.parse(
+                "package a.b\n" +
+                "data class Point(val x: Int)\n" +
+                "enum class Kind { A }\n" +
+                "object Registry { val k = Kind::class }\n" +
+                "fun main() = println(\"\"\"class Raw {\"\"\")\n",
+                "utils.kt", classes
+            );
+            Assertions.assertEquals(Arrays.asList("a.b.Point", "a.b.Kind", "a.b.Registry", "a.b.UtilsKt"), classes);
+        }
+
+        @Test
+        final void testBuild() throws IOException{
+            final Path root = Files.createTempDirectory("index");
+            final Path source = root.resolve("module/src/main/java/a");
+            Files.createDirectories(source);
+            Files.write(source.resolve("A.java"), "package a; class A { }".getBytes(StandardCharsets.UTF_8));
+            final Path copy = root.resolve("module/target/generated-sources/a");
+            Files.createDirectories(copy);
+            Files.write(copy.resolve("A.java"), "package a; class A { }".getBytes(StandardCharsets.UTF_8));
+            final Path git = root.resolve(".git/a");
+            Files.createDirectories(git);
+            Files.write(git.resolve("B.java"), "package a; class B { }".getBytes(StandardCharsets.UTF_8));
+
+            final Path pkg = root.resolve("module/src/main/java/a/out");
+            Files.createDirectories(pkg);
+            Files.write(pkg.resolve("C.java"), "package a.out; class C { }".getBytes(StandardCharsets.UTF_8));
+            Files.write(root.resolve("module/pom.xml"), new byte[0]);
+            final Path output = root.resolve("module/out/a");
+            Files.createDirectories(output);
+            Files.write(output.resolve("D.java"), "package a; class D { }".getBytes(StandardCharsets.UTF_8));
+
+            final Map<String,String> index = SourceIndex.build(root);
+            Assertions.assertEquals("module/src/main/java/a/A.java", index.get("a.A"));
+            Assertions.assertFalse(index.containsKey("a.B"));
+            Assertions.assertEquals("module/src/main/java/a/out/C.java", index.get("a.out.C"));
+            Assertions.assertFalse(index.containsKey("a.D"));
+        }
+
+        @Test
+        final void testCache() throws IOException{
+            final Path root = Files.createTempDirectory("index");
+            final Path source = root.resolve("a");
+            Files.createDirectories(source);
+            final Path file = source.resolve("A.java");
+            Files.write(file, "package a; class A { }".getBytes(StandardCharsets.UTF_8));
+
+            final Path cache = Files.createTempFile("index", ".tsv");
+            final Map<String,String> stamps = new HashMap<>();
+            final Map<String,String> index = SourceIndex.build(root, stamps);
+            SourceIndex.write(cache, root, index, stamps);
+            Assertions.assertEquals(index, SourceIndex.read(cache, root));
+
+            // edited file
+            Files.write(file, "package a; class A { int i; }".getBytes(StandardCharsets.UTF_8));
+            Assertions.assertNull(SourceIndex.read(cache, root));
+
+            // added file
+            stamps.clear();
+            SourceIndex.write(cache, root, SourceIndex.build(root, stamps), stamps);
+            Files.write(source.resolve("B.java"), "package a; class B { }".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            Assertions.assertNull(SourceIndex.read(cache, root));
+
+            // different workspace
+            Assertions.assertNull(SourceIndex.read(cache, source));
+        }
+
+    }
+
+    @Nested
+    final class TestStackCapture {
+
+        private String[] names(final StackTraceElement[] trace){
+            final String[] names = new String[trace.length];
+            for(int i = 0; i < trace.length; i++)
+                names[i] = trace[i].getClassName() + '#' + trace[i].getMethodName();
+            return names;
+        }
+
+        private void assertCapture(final IntFunction<StackTraceElement[][]> probe){
+            final StackTraceElement[][] limited = probe.apply(3);
+            Assertions.assertEquals(3, limited[0].length);
+            Assertions.assertEquals(StackCaptureProbe.class.getName() + "#apply", names(limited[0])[0]);
+            Assertions.assertEquals(3, limited[1].length);
+            Assertions.assertEquals(TestStackCapture.class.getName() + "#assertCapture", names(limited[1])[0]);
+
+            final StackTraceElement[][] full = probe.apply(Integer.MAX_VALUE);
+            Assertions.assertArrayEquals(names(limited[0]), Arrays.copyOf(names(full[0]), 3));
+            Assertions.assertArrayEquals(names(limited[1]), Arrays.copyOf(names(full[1]), 3));
+            Assertions.assertEquals(full[0].length - 2, full[1].length);
+        }
+
+        @Test
+        final void testThrowable(){
+            assertCapture(new StackCaptureProbe());
+        }
+
+        // surefire only puts target/classes on the class path, so the versioned class has to be loaded by hand
+        @Test
+        final void testStackWalker() throws Exception{
+            final Path versioned = Paths.get("target", "classes", "META-INF", "versions", "9");
+            Assumptions.assumeTrue(Files.isDirectory(versioned), "Built without the java9 profile");
+
+            final URL[] urls = {versioned.toUri().toURL(), StackCaptureProbe.class.getProtectionDomain().getCodeSource().getLocation()};
+            try(final URLClassLoader loader = new URLClassLoader(urls, null)){
+                final Class<?> probe = loader.loadClass(StackCaptureProbe.class.getName());
+                final Method stackCapture = probe.getDeclaredMethod("stackCapture");
+                stackCapture.setAccessible(true);
+                Assertions.assertEquals(urls[0], ((Class<?>) stackCapture.invoke(null)).getProtectionDomain().getCodeSource().getLocation());
+
+                @SuppressWarnings("unchecked")
+                final IntFunction<StackTraceElement[][]> function = (IntFunction<StackTraceElement[][]>) probe.getDeclaredConstructor().newInstance();
+                assertCapture(function);
+            }
+        }
+
+    }
+
+    @Nested
+    final class TestStackFrameFilter {
+
+        @Test
+        final void testPrefixes(){
+            final StackFrameFilter filter = new StackFrameFilter.Builder()
+                .excludeDefaults()
+                .exclude("org.example.")
+                .include("org.example.app.")
+                .build();
+            Assertions.assertTrue(filter.accept("dev.katsute.jcore.Workflow"));
+            Assertions.assertFalse(filter.accept("org.junit.platform.engine.support.hierarchical.NodeTestTask"));
+            Assertions.assertFalse(filter.accept("jdk.internal.reflect.NativeMethodAccessorImpl"));
+            Assertions.assertFalse(filter.accept("org.example.Util"));
+            Assertions.assertTrue(filter.accept("org.example.app.Main"));
+            Assertions.assertTrue(filter.accept("org.example"));
+        }
+
+        @Test
+        final void testCollapse(){
+            final Throwable throwable = new Throwable("Collapse");
+            throwable.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("dev.katsute.jcore.CoreTests", "test", "CoreTests.java", 1),
+                new StackTraceElement("jdk.internal.reflect.NativeMethodAccessorImpl", "invoke0", null, -2),
+                new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 568),
+                new StackTraceElement("org.junit.platform.commons.util.ReflectionUtils", "invokeMethod", "ReflectionUtils.java", 725),
+                new StackTraceElement("dev.katsute.jcore.CoreTests", "run", "CoreTests.java", 2),
+                new StackTraceElement("org.apache.maven.surefire.booter.ForkedBooter", "main", "ForkedBooter.java", 495)
+            });
+            Workflow.warning(throwable);
+            final String[] lines = OUT.toString().trim().split("%0A");
+            Assertions.assertEquals(5, lines.length);
+            Assertions.assertEquals("\t... 3 frames omitted", lines[2]);
+            Assertions.assertEquals("\tat dev.katsute.jcore.CoreTests.run(CoreTests.java:2)", lines[3]);
+            Assertions.assertEquals("\t... 1 frame omitted", lines[4]);
+        }
+
+        @Test
+        final void testCause(){
+            final RuntimeException cause = new IllegalStateException("Cause");
+            final RuntimeException exception = new RuntimeException("Wrapped", cause);
+            exception.addSuppressed(new IllegalArgumentException("Suppressed"));
+            cause.initCause(exception); // circular
+            Workflow.warning(exception);
+            final String out = OUT.toString();
+            Assertions.assertTrue(out.contains("%0A\tSuppressed: java.lang.IllegalArgumentException: Suppressed%0A\t\tat dev.katsute.jcore.CoreTests$TestStackFrameFilter.testCause"));
+            Assertions.assertTrue(out.contains("%0ACaused by: java.lang.IllegalStateException: Cause%0A\tat dev.katsute.jcore.CoreTests$TestStackFrameFilter.testCause"));
+            Assertions.assertTrue(Pattern.compile("%0A\\t\\.\\.\\. \\d+ more").matcher(out).find());
+            Assertions.assertTrue(out.contains("%0ACaused by: [CIRCULAR REFERENCE: java.lang.RuntimeException: Wrapped]"));
+        }
+
+        @Test
+        final void testTruncate(){
+            final StringBuilder message = new StringBuilder();
+            for(int i = 0; i < 70000; i++)
+                message.append('%');
+            Workflow.warning(new RuntimeException(message.toString()));
+            final String out = OUT.toString().trim();
+            Assertions.assertTrue(out.endsWith("%0A... message truncated"));
+            Assertions.assertTrue(out.substring(out.indexOf("::", 2) + 2).getBytes(StandardCharsets.UTF_8).length <= 64 * 1024);
+        }
+
+        @Test
+        final void testNoFilter(){
+            Workflow.setStackFrameFilter(null);
+            try{
+                Workflow.warning("Warning");
+            }finally{
+                Workflow.setStackFrameFilter(StackFrameFilter.DEFAULT);
+            }
+            Assertions.assertFalse(OUT.toString().contains("omitted"));
+        }
+
+    }
+
+    @Nested
+    final class TestContext {
+
+        @Test
+        final void testContext(){
+            Assertions.assertEquals(System.getenv("GITHUB_REPOSITORY"), Context.getRepository());
+            Assertions.assertEquals(System.getenv("RUNNER_OS"), Context.getRunnerOS());
+            Assertions.assertEquals("true".equals(System.getenv("GITHUB_ACTIONS")), Context.isGitHubActions());
+            Assertions.assertTrue(Context.getBlobUrl().endsWith("/blob/" + System.getenv("GITHUB_SHA") + '/'));
+        }
+
+        @Test
+        final void testJsonPointer() throws IOException{
+            final Path file = Files.createTempFile("event", ".json");
+            Files.write(file, (
+                "{\n" +
+                "  \"ref\": \"refs/heads/main\",\n" +
+                "  \"commits\": [\n" +
+                "    {\"id\": \"a\", \"message\": \"first } ]\", \"added\": []},\n" +
+                "    {\"id\": \"b\", \"message\": \"caf\u00e9 \\\"quoted\\\" \\u00e9\\n\"}\n" +
+                "  ],\n" +
+                "  \"a/b\": 1, \"esc\\u0061ped\": true,\n" +
+                "  \"pull_request\": {\"number\": 42, \"draft\": false, \"head\": null, \"labels\": [{\"name\": \"x\"}]}\n" +
+                "}"
+            ).getBytes(StandardCharsets.UTF_8));
+
+            final JsonPointerReader reader = JsonPointerReader.open(file);
+            Assertions.assertEquals("refs/heads/main", reader.get("/ref"));
+            Assertions.assertEquals("b", reader.get("/commits/1/id"));
+            Assertions.assertEquals("first } ]", reader.get("/commits/0/message"));
+            Assertions.assertEquals("caf\u00e9 \"quoted\" \u00e9\n", reader.get("/commits/1/message"));
+            Assertions.assertEquals("42", reader.get("/pull_request/number"));
+            Assertions.assertEquals("false", reader.get("/pull_request/draft"));
+            Assertions.assertEquals("[{\"name\": \"x\"}]", reader.get("/pull_request/labels"));
+            Assertions.assertEquals("1", reader.get("/a~1b"));
+            Assertions.assertEquals("true", reader.get("/escaped"));
+            Assertions.assertNull(reader.get("/pull_request/head"));
+            Assertions.assertNull(reader.get("/commits/2"));
+            Assertions.assertNull(reader.get("/missing/value"));
+            Assertions.assertNull(reader.get("/ref/value"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> reader.get("ref"));
+        }
+
+    }
+
+    @Nested
+    final class TestSummaryListener {
+
+        private TestPlan plan(final String enabled){
+            return plan(enabled, "passes", "fails", "errors", "skipped");
+        }
+
+        private TestPlan plan(final String enabled, final String... tests){
+            final Map<String,String> parameters = new HashMap<>();
+            parameters.put(WorkflowSummaryListener.ENABLED, enabled);
+            parameters.put(WorkflowSummaryListener.SLOWEST, "1");
+            final EngineDescriptor engine = new EngineDescriptor(UniqueId.forEngine("engine"), "Engine");
+            for(final String name : tests)
+                engine.addChild(new AbstractTestDescriptor(engine.getUniqueId().append("test", name), name){
+                    @Override
+                    public final Type getType(){
+                        return Type.TEST;
+                    }
+                });
+            return TestPlan.from(Collections.singleton(engine), new ConfigurationParameters(){
+                @Override
+                public final Optional<String> get(final String key){
+                    return Optional.ofNullable(parameters.get(key));
+                }
+
+                @Override
+                public final Optional<Boolean> getBoolean(final String key){
+                    return get(key).map(Boolean::parseBoolean);
+                }
+
+                @Override
+                public final int size(){
+                    return parameters.size();
+                }
+            });
+        }
+
+        private void run(final TestPlan plan){
+            final WorkflowSummaryListener listener = new WorkflowSummaryListener();
+            listener.testPlanExecutionStarted(plan);
+            for(final TestIdentifier test : plan.getChildren(plan.getRoots().iterator().next())){
+                switch(test.getDisplayName()){
+                    case "skipped":
+                        listener.executionSkipped(test, "disabled");
+                        continue;
+                    case "passes":
+                        listener.executionStarted(test);
+                        listener.executionFinished(test, TestExecutionResult.successful());
+                        break;
+                    case "fails":
+                        listener.executionStarted(test);
+                        listener.executionFinished(test, TestExecutionResult.failed(new AssertionError("expected")));
+                        break;
+                    case "errors":
+                        listener.executionStarted(test);
+                        try{
+                            Thread.sleep(20);
+                        }catch(final InterruptedException ignored){ }
+                        listener.executionFinished(test, TestExecutionResult.failed(new IllegalStateException("broken")));
+                        break;
+                    default:
+                        listener.executionStarted(test);
+                        listener.executionFinished(test, TestExecutionResult.failed(new AssertionError(test.getDisplayName())));
+                }
+            }
+            listener.testPlanExecutionFinished(plan);
+        }
+
+        @Test
+        final void testSummaryListener() throws IOException{
+            final Path file = Paths.get(System.getenv("GITHUB_STEP_SUMMARY"));
+            Files.write(file, new byte[0]);
+
+            run(plan("false"));
+            Assertions.assertEquals(0, Files.size(file));
+
+            run(plan("true"));
+            final String summary = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replace("\r", "");
+            Assertions.assertTrue(summary.startsWith("### Test Results\n\n| Passed | Failed | Errors | Aborted | Skipped | Time |\n| --- | --- | --- | --- | --- | --- |\n| 1 | 1 | 1 | 0 | 1 | "));
+            Assertions.assertTrue(summary.contains("#### Slowest Tests\n\n| Test | Time |\n| --- | --- |\n| errors | "));
+            Assertions.assertTrue(summary.contains("| fails | assertion | java.lang.AssertionError: expected |\n"));
+            Assertions.assertTrue(summary.contains("| errors | error | java.lang.IllegalStateException: broken |\n"));
+        }
+
+        @Test
+        final void testSummaryListenerFailureLimit() throws IOException{
+            final Path file = Paths.get(System.getenv("GITHUB_STEP_SUMMARY"));
+            Files.write(file, new byte[0]);
+
+            final String[] tests = new String[105];
+            for(int i = 0; i < tests.length; i++)
+                tests[i] = "failure " + i;
+            run(plan("true", tests));
+            final String summary = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replace("\r", "");
+            Assertions.assertTrue(summary.contains("| failure 99 | assertion | java.lang.AssertionError: failure 99 |\n"));
+            Assertions.assertFalse(summary.contains("| failure 100 |"));
+            Assertions.assertTrue(summary.contains("... and 5 more\n"));
+        }
+
+    }
+
     @Nested
     final class TestCI {
 
@@ -0,0 +1,18 @@
+package dev.katsute.jcore;
+
+public final class SkipClassifier implements ExceptionClassifier {
+
+    @Override
+    public final Classification classify(final Class<? extends Throwable> type){
+        return type == Skip.class ? Classification.ASSUMPTION : null;
+    }
+
+    static final class Skip extends RuntimeException {
+
+        Skip(final String message){
+            super(message);
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package dev.katsute.jcore;
+
+import java.util.function.IntFunction;
+
+// only uses the JDK and StackCapture so it can be loaded next to either version of StackCapture
+public final class StackCaptureProbe implements IntFunction<StackTraceElement[][]> {
+
+    @Override
+    public final StackTraceElement[][] apply(final int limit){
+        return new StackTraceElement[][]{
+            StackCapture.capture(0, limit),
+            outside(limit)
+        };
+    }
+
+    private StackTraceElement[] outside(final int limit){
+        return StackCapture.captureOutside(StackCaptureProbe.class.getName(), limit);
+    }
+
+    static Class<?> stackCapture(){
+        return StackCapture.class;
+    }
+
+}